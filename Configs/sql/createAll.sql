@@ -30,18 +30,25 @@ create table c##schemauser.dept(
 
 
 create table c##schemauser.emp(  
-  empno    number(4,0),  
+  empno    number(10,0),  
   ename    varchar2(10),  
   job      varchar2(9),  
-  mgr      number(4,0),  
+  mgr      number(10,0),  
   hiredate date,  
   sal      number(7,2),  
   comm     number(7,2),  
   deptno   number(2,0),  
+  version  number(10,0) default 0 not null,  
   constraint pk_emp primary key (empno),  
   constraint fk_deptno foreign key (deptno) references dept (deptno)  
 );
 
+-- Index for the keyset pagination by name (sort key and id as tie-breaker)
+create index c##schemauser.emp_ename_empno_ix on c##schemauser.emp (ename, empno);
+
+-- Index for the incremental export by hire date (cursor of hire date and id, see EmpExportService)
+create index c##schemauser.emp_hiredate_empno_ix on c##schemauser.emp (hiredate, empno);
+
 
 insert into c##schemauser.DEPT (DEPTNO, DNAME, LOC)
 values(10, 'ACCOUNTING', 'NEW YORK');
@@ -71,6 +78,10 @@ insert into c##schemauser.EMP (EMPNO,ENAME,JOB,MGR,HIREDATE,SAL,COMM,DEPTNO) val
 insert into c##schemauser.EMP (EMPNO,ENAME,JOB,MGR,HIREDATE,SAL,COMM,DEPTNO) values ('7900','JAMES','CLERK','7698',to_date('03.12.81','DD.MM.RR'),'950',null,'30');
 insert into c##schemauser.EMP (EMPNO,ENAME,JOB,MGR,HIREDATE,SAL,COMM,DEPTNO) values ('7934','MILLER','CLERK','7782',to_date('23.01.82','DD.MM.RR'),'1300',null,'10');
 
+-- Sequence of the emp numbers. INCREMENT BY must match the allocationSize of Emp (pooled-lo optimizer).
+-- For existing databases see migrateEmpSequence.sql
+create sequence c##schemauser.emp_seq start with 8000 increment by 50;
+
 -- Third step:
 -- Create user for application / test data
 -- Create synonyms for tables
@@ -91,12 +102,21 @@ CREATE USER c##writinguser IDENTIFIED BY oracle;
 
 CREATE SYNONYM c##writinguser.dept FOR c##schemauser.dept;
 CREATE SYNONYM c##writinguser.emp FOR c##schemauser.emp;
+CREATE SYNONYM c##writinguser.emp_seq FOR c##schemauser.emp_seq;
 
 
 GRANT CONNECT TO c##writinguser;
 
 GRANT SELECT, INSERT, UPDATE, DELETE ON c##writinguser.dept TO c##writinguser;
 GRANT SELECT, INSERT, UPDATE, DELETE ON c##writinguser.emp TO c##writinguser;
+GRANT SELECT ON c##writinguser.emp_seq TO c##writinguser;
+
+
+-- Rights for the recovery of XA transactions (both datasources are XA datasources)
+GRANT SELECT ON sys.dba_pending_transactions TO c##readinguser, c##writinguser;
+GRANT SELECT ON sys.pending_trans$ TO c##readinguser, c##writinguser;
+GRANT SELECT ON sys.dba_2pc_pending TO c##readinguser, c##writinguser;
+GRANT EXECUTE ON sys.dbms_xa TO c##readinguser, c##writinguser;
 
 
 commit;
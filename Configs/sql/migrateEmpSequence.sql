@@ -0,0 +1,33 @@
+-- Migration of the emp numbers to block allocation (pooled-lo optimizer, see Emp and persistence.xml)
+-- Before, every insert called the sequence once (allocationSize = 1). Now one call of the sequence allocates a block
+-- of 50 numbers, the value of the sequence being the first number of the block.
+-- Run as schema owner (or DBA) while no application node is inserting emps.
+
+
+-- First step: Widen the emp numbers
+-- Every node (and every restart) may leave up to 49 numbers of its last block unused, NUMBER(4,0) would run out fast.
+
+alter table c##schemauser.emp modify (empno number(10,0), mgr number(10,0));
+
+
+-- Second step: Create the sequence behind the highest stored emp number
+-- INCREMENT BY must match Emp.ID_BLOCK_SIZE. When changing the block size later, change both and restart all nodes.
+
+DECLARE
+  next_empno NUMBER;
+BEGIN
+  SELECT NVL(MAX(empno), 0) + 1 INTO next_empno FROM c##schemauser.emp;
+  EXECUTE IMMEDIATE 'create sequence c##schemauser.emp_seq start with ' || next_empno || ' increment by 50';
+END;
+/
+
+
+-- Third step: Synonym and rights for the writing user
+
+CREATE SYNONYM c##writinguser.emp_seq FOR c##schemauser.emp_seq;
+
+GRANT SELECT ON c##writinguser.emp_seq TO c##writinguser;
+
+
+-- Fourth step (optional): Drop the sequence of the old mapping, if it was created
+-- drop sequence c##schemauser.emp_empno_generator;
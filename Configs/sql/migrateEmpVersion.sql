@@ -0,0 +1,10 @@
+-- Migration of the emps to optimistic locking (version column, see Emp and GenericDao.updateWithRetry)
+-- Every update increments the version and checks that it was not changed since the emp was read, so concurrent
+-- updates of the same emp are detected instead of overwriting each other, without holding row locks.
+-- Run as schema owner (or DBA) before deploying the application. The existing synonyms and grants cover the column.
+
+
+-- Adding a column with a default value and NOT NULL only changes the dictionary (no update of the existing rows),
+-- so the statement is fast and does not lock the table for long.
+
+alter table c##schemauser.emp add (version number(10,0) default 0 not null);
@@ -0,0 +1,168 @@
+package de.test.genericdao.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache for lookups (e.g. a name to an id).
+ * The least recently used entry is evicted when the maximum size is reached and every entry expires after the time
+ * to live. Negative results (lookups without result) are cached as well.
+ *
+ * The loader is called outside of the lock. An invalidation during a load prevents that the (possibly stale) loaded
+ * value is cached.
+ *
+ * @param <K> Type of the key
+ * @param <V> Type of the value
+ */
+public final class LookupCache<K, V> {
+
+  private final int maxSize;
+
+  private final long timeToLiveNanos;
+
+  private final Map<K, Entry<V>> entries;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  /** Incremented by every invalidation, so loads which were started before can be detected. */
+  private long generation;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param maxSize
+   *          Maximum number of entries, must be greater then zero
+   * @param timeToLive
+   *          Time after which an entry expires
+   * @param unit
+   *          Unit of the time to live
+   */
+  public LookupCache(int maxSize, long timeToLive, TimeUnit unit) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be greater then zero: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.timeToLiveNanos = unit.toNanos(timeToLive);
+    this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        boolean remove = size() > LookupCache.this.maxSize;
+        if (remove) {
+          evictions.increment();
+        }
+        return remove;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached value of the key. If there is no valid entry the loader is called and its result is cached,
+   * even if it is empty.
+   *
+   * @param key
+   *          Key to look up
+   * @param loader
+   *          Loader to be called if there is no valid entry, must not return null
+   * @return The cached or loaded value. Empty if the lookup has no result.
+   */
+  public Optional<V> get(K key, Function<? super K, Optional<V>> loader) {
+
+    long loadGeneration;
+    synchronized (this) {
+      Entry<V> entry = entries.get(key);
+      if (null != entry) {
+        if (System.nanoTime() - entry.created < timeToLiveNanos) {
+          hits.increment();
+          return entry.value;
+        }
+        entries.remove(key);
+        evictions.increment();
+      }
+      loadGeneration = generation;
+    }
+
+    misses.increment();
+    Optional<V> value = loader.apply(key);
+
+    synchronized (this) {
+      if (loadGeneration == generation) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Removes the entry of the key.
+   *
+   * @param key
+   *          Key to be removed
+   */
+  public synchronized void invalidate(K key) {
+    generation++;
+    entries.remove(key);
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public synchronized void invalidateAll() {
+    generation++;
+    entries.clear();
+  }
+
+  /**
+   * @return Number of currently cached entries, including expired ones which were not yet removed
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return Number of lookups answered by the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return Number of lookups which had to call the loader
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return Number of entries removed because of the maximum size or the time to live
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Cached value with its creation time.
+   */
+  private static final class Entry<V> {
+
+    private final Optional<V> value;
+
+    private final long created;
+
+    private Entry(Optional<V> value, long created) {
+      this.value = value;
+      this.created = created;
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+package de.test.genericdao.dao;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a bulk operation. Contains the number of processed rows and the elapsed time, so the throughput of the
+ * operation can be reported.
+ */
+public final class BulkResult implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /** Result for an empty or null input. */
+  public static final BulkResult EMPTY = new BulkResult(0, 0);
+
+  private final long rows;
+
+  private final long elapsedNanos;
+
+  /**
+   * Creates a new result.
+   *
+   * @param rows
+   *          Number of processed rows
+   * @param elapsedNanos
+   *          Elapsed time in nanoseconds
+   */
+  public BulkResult(long rows, long elapsedNanos) {
+    this.rows = rows;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * @return Number of processed rows
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  /**
+   * @return Elapsed time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * @return Elapsed time in milliseconds
+   */
+  public long getElapsedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+  }
+
+  /**
+   * @return Processed rows per second. Zero if no time elapsed.
+   */
+  public double getRowsPerSecond() {
+    return (elapsedNanos > 0) ? (rows * (double) NANOS_PER_SECOND) / elapsedNanos : 0d;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("BulkResult[rows=%d, elapsed=%d ms, rows/s=%.1f]", rows, getElapsedMillis(),
+            getRowsPerSecond());
+  }
+
+}
@@ -0,0 +1,26 @@
+package de.test.genericdao.dao;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+/**
+ * Condition of a criteria statement, used to select the objects of bulk and finder methods.
+ *
+ * @param <T> Type of the root of the statement
+ */
+@FunctionalInterface
+public interface CriteriaCondition<T> {
+
+  /**
+   * Creates the predicate of the condition.
+   *
+   * @param builder
+   *          The CriteriaBuilder to create the predicate
+   * @param root
+   *          Root of the statement
+   * @return The created predicate
+   */
+  Predicate toPredicate(CriteriaBuilder builder, Root<T> root);
+
+}
@@ -1,8 +1,14 @@
 
 package de.test.genericdao.dao;
 
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Interface for dynamic but typesafe CRUD and FIND methods.
@@ -74,6 +80,9 @@ public interface IGenericDao<T> {
   /**
    * Updates the given object.
    * If an flush on the database occurs depends on the default value.
+   * If the dynamic type has a version attribute (javax.persistence.Version), the object must have the version stored
+   * in the database, otherwise an OptimisticLockException is thrown. See {@link #updateWithRetry(Object, Consumer)}
+   * for changes which should be retried instead.
    *
    * @param generic
    *          Object to be deleted
@@ -113,6 +122,150 @@ public interface IGenericDao<T> {
    */
   List<T> update(List<T> genericList, boolean flush);
 
+  /**
+   * Creates the passed, generic list of objects in bulk mode, using the default batch size.
+   *
+   * @param genericList
+   *          The objects to be created
+   * @return Number of created rows and the throughput, never null.
+   * @see #createBulk(List, int)
+   */
+  BulkResult createBulk(List<T> genericList);
+
+  /**
+   * Creates the passed, generic list of objects in bulk mode.
+   * After every batch the persistence context is flushed and cleared, so the memory consumption stays flat and the
+   * JDBC driver can send each batch as one statement batch (see hibernate.jdbc.batch_size).
+   *
+   * Warning: Clearing detaches ALL entities of the persistence context, not only the created ones!
+   *
+   * @param genericList
+   *          The objects to be created
+   * @param batchSize
+   *          Number of objects after which a flush and clear is done. Should match hibernate.jdbc.batch_size.
+   * @return Number of created rows and the throughput, never null.
+   */
+  BulkResult createBulk(List<T> genericList, int batchSize);
+
+  /**
+   * Updates the given list of objects in bulk mode, using the default batch size.
+   *
+   * @param genericList
+   *          Objects to be updated
+   * @return Number of updated rows and the throughput, never null.
+   * @see #updateBulk(List, int)
+   */
+  BulkResult updateBulk(List<T> genericList);
+
+  /**
+   * Updates the given list of objects in bulk mode.
+   * After every batch the persistence context is flushed and cleared, so the memory consumption stays flat and the
+   * JDBC driver can send each batch as one statement batch (see hibernate.jdbc.batch_size).
+   *
+   * Warning: Clearing detaches ALL entities of the persistence context, not only the updated ones!
+   *
+   * @param genericList
+   *          Objects to be updated
+   * @param batchSize
+   *          Number of objects after which a flush and clear is done. Should match hibernate.jdbc.batch_size.
+   * @return Number of updated rows and the throughput, never null.
+   */
+  BulkResult updateBulk(List<T> genericList, int batchSize);
+
+  /**
+   * Deletes the objects with the given ids using set based DELETE statements (one per 1000 ids, because of the IN
+   * list limit of Oracle). Pending changes are flushed before, the deleted objects are detached from the persistence
+   * context and evicted from the second level cache.
+   *
+   * @param ids
+   *          Ids of the objects to be deleted. NULL and duplicates are ignored.
+   * @return Number of deleted rows
+   */
+  int deleteByIds(Collection<?> ids);
+
+  /**
+   * Deletes all objects matching the condition with one set based DELETE statement.
+   * Pending changes are flushed before. Because the deleted objects are not known, all objects of the dynamic type are
+   * detached from the persistence context and evicted from the second level cache.
+   *
+   * @param condition
+   *          Condition of the objects to be deleted
+   * @return Number of deleted rows
+   */
+  int deleteWhere(CriteriaCondition<T> condition);
+
+  /**
+   * Updates all objects matching the condition with one set based UPDATE statement.
+   * Pending changes are flushed before. Because the updated objects are not known, all objects of the dynamic type are
+   * detached from the persistence context and evicted from the second level cache.
+   * If the dynamic type has a numeric version attribute which is not assigned, the version is incremented, so
+   * optimistic updates of other transactions notice the change.
+   *
+   * @param condition
+   *          Condition of the objects to be updated
+   * @param assignments
+   *          New values per attribute, NULL values are allowed
+   * @return Number of updated rows
+   */
+  int updateWhere(CriteriaCondition<T> condition, Map<SingularAttribute<? super T, ?>, ?> assignments);
+
+  /**
+   * Updates the object with the given id using optimistic locking, so many writers can change different objects in
+   * parallel without holding row locks between reading and writing. The current state is read from the database
+   * (bypassing the caches) and the change is applied to it. Only the changed attributes are written, together with the
+   * next version, by one UPDATE statement which matches only if the version is still the one that was read.
+   * If another transaction changed the object in the meantime, nothing is written and the update is retried with the
+   * new state after a growing, randomized wait time. A conflict does not mark the transaction for rollback, so it can
+   * continue after a successful retry.
+   *
+   * The change may be executed more than once and must only depend on the passed object. It is applied to a detached
+   * object, so lazy associations which are not loaded can not be navigated. Pending changes are flushed before.
+   * An instance of the object managed by the persistence context stays managed, but keeps the state and version it had
+   * before. It must be refreshed (javax.persistence.EntityManager#refresh) before it is changed again, otherwise
+   * the next flush fails with an OptimisticLockException.
+   *
+   * @param id
+   *          Id of the object to be updated
+   * @param change
+   *          Change of the object, e.g. adding an amount to a value
+   * @return The updated object (detached, having the new version). Empty if nothing was found or NULL was passed as an
+   *         id.
+   * @throws javax.persistence.OptimisticLockException
+   *           if the object was changed by another transaction in every attempt
+   * @throws IllegalStateException
+   *           if the dynamic type has no version attribute (javax.persistence.Version)
+   */
+  Optional<T> updateWithRetry(Object id, Consumer<? super T> change);
+
+  /**
+   * Evicts the object with the given id from the second level cache.
+   * Needed if the object was changed outside of the persistence unit, e.g. by another application.
+   *
+   * @param id
+   *          Id of the object to be evicted. Nothing happens if NULL is passed.
+   */
+  void evictFromCache(Object id);
+
+  /**
+   * Evicts all objects of the dynamic type from the second level cache.
+   */
+  void evictAllFromCache();
+
+  /**
+   * Executes the work in read-only mode: Objects loaded by the work are read-only, so no snapshots for the dirty
+   * checking are kept and they are skipped at flush time. Pending changes are not flushed before the queries of the
+   * work (flush mode MANUAL). The previous modes are restored afterwards.
+   *
+   * Warning: The objects stay read-only as long as they are part of the persistence context (usually until the end of
+   * the transaction), changes of them are not written to the database!
+   *
+   * @param work
+   *          Reading work, e.g. calls of find methods
+   * @param <R> Type of the result
+   * @return Result of the work
+   */
+  <R> R readOnly(Supplier<R> work);
+
   /**
    * Finds the object with the given id.
    * 
@@ -122,6 +275,42 @@ public interface IGenericDao<T> {
    */
   Optional<T> find(Object id);
 
+  /**
+   * Finds the object with the given id and loads the associations of the named entity graph in the same statement.
+   * Associations which are not part of the graph are loaded as defined by their mapping.
+   *
+   * @param id
+   *          Id of the object to be found
+   * @param graphName
+   *          Name of the entity graph (see javax.persistence.NamedEntityGraph) of the dynamic type
+   * @return Optional containing the object. Empty if nothing was found or NULL was passed as an id.
+   */
+  Optional<T> find(Object id, String graphName);
+
+  /**
+   * Finds the objects with the given ids. Objects already managed by the persistence context are taken from it, the
+   * others are loaded with one SELECT per 1000 ids (IN list limit of Oracle) instead of one lookup per id.
+   *
+   * @param ids
+   *          Ids of the objects. NULL and duplicates are ignored. Numbers are converted to the type of the id
+   *          attribute (e.g. Integer to Long).
+   * @return Found objects in the order of the ids, ids without object are skipped. Never null.
+   * @throws IllegalArgumentException if an id can't be converted to the type of the id attribute
+   */
+  List<T> findAllById(Collection<?> ids);
+
+  /**
+   * Finds the objects with the given ids, see {@link #findAllById(Collection)}.
+   *
+   * @param ids
+   *          Ids of the objects. NULL and duplicates are ignored. Numbers are converted to the type of the id
+   *          attribute (e.g. Integer to Long).
+   * @param <K> Type of the ids
+   * @return Found objects by the passed ids in the order of the ids, ids without object are missing. Never null.
+   * @throws IllegalArgumentException if an id can't be converted to the type of the id attribute
+   */
+  <K> Map<K, T> findAllByIdAsMap(Collection<K> ids);
+
   /**
    * Finds all objects of the dynamic type.
    * 
@@ -129,4 +318,113 @@ public interface IGenericDao<T> {
    */
   List<T> findAll();
 
+  /**
+   * Finds all objects of the dynamic type and loads the associations of the named entity graph in the same statement,
+   * so no additional select per object is needed (N+1 problem).
+   * Associations which are not part of the graph are loaded as defined by their mapping.
+   *
+   * @param graphName
+   *          Name of the entity graph (see javax.persistence.NamedEntityGraph) of the dynamic type
+   * @return List of objects, never null.
+   */
+  List<T> findAll(String graphName);
+
+  /**
+   * Counts all objects of the dynamic type with a SELECT COUNT statement, no object is loaded.
+   *
+   * @return Number of objects
+   */
+  long count();
+
+  /**
+   * Counts the objects matching the condition with a SELECT COUNT statement, no object is loaded.
+   *
+   * @param condition
+   *          Condition of the objects to be counted
+   * @return Number of objects
+   */
+  long count(CriteriaCondition<T> condition);
+
+  /**
+   * Checks if at least one object matches the condition. Only the id of the first matching row is read (FETCH FIRST 1
+   * ROW), no object is loaded.
+   *
+   * @param condition
+   *          Condition of the objects
+   * @return true if an object matches the condition
+   */
+  boolean exists(CriteriaCondition<T> condition);
+
+  /**
+   * Finds the given attributes of all objects of the dynamic type and passes them to the constructor of the projection
+   * type (constructor expression). Only the selected columns are read, no entities are created or managed by the
+   * persistence context, so there is no dirty checking and no association is loaded.
+   * The projections are ordered by the id of the objects.
+   *
+   * @param projectionType
+   *          Type of the results, needs a public constructor with parameters matching the attributes in type and order
+   * @param attributes
+   *          Attributes to be selected, at least one
+   * @param <P> Type of the projection
+   * @return List of projections, never null.
+   */
+  <P> List<P> findAllAs(Class<P> projectionType, List<SingularAttribute<? super T, ?>> attributes);
+
+  /**
+   * Finds the given attributes of all objects matching the condition and passes them to the constructor of the
+   * projection type (constructor expression).
+   * The projections are ordered by the id of the objects.
+   *
+   * @param projectionType
+   *          Type of the results, needs a public constructor with parameters matching the attributes in type and order
+   * @param condition
+   *          Condition of the objects to be selected
+   * @param attributes
+   *          Attributes to be selected, at least one
+   * @param <P> Type of the projection
+   * @return List of projections, never null.
+   * @see #findAllAs(Class, List)
+   */
+  <P> List<P> findAs(Class<P> projectionType, CriteriaCondition<T> condition,
+      List<SingularAttribute<? super T, ?>> attributes);
+
+  /**
+   * Finds a page of objects using keyset (seek) pagination. The objects are sorted by the given sort key and by their
+   * id as tie-breaker. Instead of skipping rows the query seeks behind the last element of the previous page, so
+   * reading page N costs the same as reading the first page (given an index on sort key and id).
+   * Objects having NULL as sort key are not part of any page.
+   *
+   * @param sortKey
+   *          Attribute to sort by, e.g. the id or a name
+   * @param lastSeen
+   *          Token of the previous page. NULL to read the first page.
+   * @param pageSize
+   *          Maximum number of objects of the page. Values lower than one are treated as one.
+   * @param <K> Type of the sort key
+   * @return Page containing the objects and the token for the next page, never null.
+   */
+  <K extends Comparable<? super K>> KeysetPage<T, K> findPage(SingularAttribute<? super T, K> sortKey,
+      PageToken<K> lastSeen, int pageSize);
+
+  /**
+   * Streams all objects of the dynamic type, using the default fetch size.
+   *
+   * @return Stream of objects, never null. Must be closed after usage.
+   * @see #streamAll(int)
+   */
+  Stream<T> streamAll();
+
+  /**
+   * Streams all objects of the dynamic type using a server side cursor. The rows are read in chunks of the given
+   * fetch size and every object is detached from the persistence context after it was read, so the memory
+   * consumption stays constant independent of the size of the table.
+   * The stream is only usable inside the transaction it was created in and must be closed after usage
+   * (e.g. try-with-resources), otherwise the cursor stays open.
+   *
+   * @param fetchSize
+   *          Number of rows fetched per round trip by the JDBC driver
+   * @return Stream of detached objects, never null. Must be closed after usage.
+   */
+  Stream<T> streamAll(int fetchSize);
+
 }
@@ -0,0 +1,57 @@
+package de.test.genericdao.dao;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A page of a keyset (seek) pagination.
+ *
+ * @param <T> Type of the elements
+ * @param <K> Type of the sort key
+ */
+public final class KeysetPage<T, K> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<T> content;
+
+  private final PageToken<K> nextToken;
+
+  /**
+   * Creates a new page.
+   *
+   * @param content
+   *          Elements of the page
+   * @param nextToken
+   *          Token to read the next page, null if this is the last page
+   */
+  public KeysetPage(List<T> content, PageToken<K> nextToken) {
+    this.content = Collections.unmodifiableList(new ArrayList<>(content));
+    this.nextToken = nextToken;
+  }
+
+  /**
+   * @return Elements of the page, never null.
+   */
+  public List<T> getContent() {
+    return content;
+  }
+
+  /**
+   * @return Token to read the next page. Empty if this is the last page.
+   */
+  public Optional<PageToken<K>> getNextToken() {
+    return Optional.ofNullable(nextToken);
+  }
+
+  /**
+   * @return True if there is a further page
+   */
+  public boolean hasNext() {
+    return null != nextToken;
+  }
+
+}
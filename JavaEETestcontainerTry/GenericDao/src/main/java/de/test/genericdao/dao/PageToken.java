@@ -0,0 +1,69 @@
+package de.test.genericdao.dao;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Continuation token of a keyset page. Contains the sort key and the id of the last element of a page, so the next
+ * page can be read by seeking behind this element instead of skipping rows.
+ *
+ * @param <K> Type of the sort key
+ */
+public final class PageToken<K> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final K lastKey;
+
+  private final Object lastId;
+
+  /**
+   * Creates a new token.
+   *
+   * @param lastKey
+   *          Sort key of the last element of the page
+   * @param lastId
+   *          Id of the last element of the page, used as tie-breaker for non unique sort keys
+   */
+  public PageToken(K lastKey, Object lastId) {
+    this.lastKey = Objects.requireNonNull(lastKey, "lastKey");
+    this.lastId = Objects.requireNonNull(lastId, "lastId");
+  }
+
+  /**
+   * @return Sort key of the last element of the page
+   */
+  public K getLastKey() {
+    return lastKey;
+  }
+
+  /**
+   * @return Id of the last element of the page
+   */
+  public Object getLastId() {
+    return lastId;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PageToken)) {
+      return false;
+    }
+    PageToken<?> other = (PageToken<?>) o;
+    return lastKey.equals(other.lastKey) && lastId.equals(other.lastId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(lastKey, lastId);
+  }
+
+  @Override
+  public String toString() {
+    return "PageToken[lastKey=" + lastKey + ", lastId=" + lastId + "]";
+  }
+
+}
@@ -1,19 +1,70 @@
 
 package de.test.genericdao.dao.impl;
 
+import de.test.genericdao.dao.BulkResult;
+import de.test.genericdao.dao.CriteriaCondition;
 import de.test.genericdao.dao.IGenericDao;
+import de.test.genericdao.dao.KeysetPage;
+import de.test.genericdao.dao.PageToken;
+import de.test.genericdao.metrics.DaoMetrics;
+import de.test.genericdao.metrics.DaoOperation;
+import de.test.genericdao.routing.ReplicaRouter;
+import de.test.genericdao.routing.Writing;
+import de.test.genericdao.slowquery.ExplainPlan;
+import de.test.genericdao.slowquery.SlowQueryLog;
+import de.test.genericdao.util.DaoUtil;
+
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
+import org.hibernate.type.VersionType;
 
 import javax.annotation.PostConstruct;
+import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
+import javax.persistence.CacheRetrieveMode;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
 import javax.persistence.NoResultException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Parameter;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
 import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Generic Class for Data Access Objects.
@@ -26,18 +77,73 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
 
   private static final int ONE_RESULT = 1;
 
+  /** Rows read by the single result methods, enough to detect a second result. */
+  private static final int TWO_RESULTS = 2;
+
+  /** Maximum length of a bind parameter value in the slow query log. */
+  private static final int MAX_BIND_LENGTH = 100;
+
   /** The default flush mode, used in methods without flush parameter. */
   protected static final boolean FLUSH_MODE_DEFAULT = false;
 
   /** The flush mode for loops. */
   protected static final boolean FLUSH_MODE_LOOP = false;
 
+  /** The default batch size for bulk operations. Should match hibernate.jdbc.batch_size of the persistence unit. */
+  protected static final int BULK_BATCH_SIZE_DEFAULT = 50;
+
+  /** The default JDBC fetch size for streaming queries. */
+  protected static final int STREAM_FETCH_SIZE_DEFAULT = 500;
+
+  /** The default number of attempts of an optimistic update before the conflict is thrown. */
+  protected static final int UPDATE_ATTEMPTS_DEFAULT = 5;
+
+  /** The default wait time after the first conflict of an optimistic update, doubled with every further conflict. */
+  protected static final long UPDATE_BACKOFF_MILLIS_DEFAULT = 10;
+
+  /** Upper limit of the wait time between two attempts of an optimistic update. */
+  private static final long UPDATE_BACKOFF_MAX_MILLIS = 500;
+
+  /** Hints to read the state of an object from the database instead of the second level cache. */
+  private static final Map<String, Object> BYPASS_CACHE =
+          Collections.singletonMap("javax.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+
+  /** Name of the template to select all objects of the generic type. */
+  private static final String TEMPLATE_ALL = "genericDao.all";
+
+  /** Name of the template to select objects of the generic type by their ids. */
+  private static final String TEMPLATE_BY_IDS = "genericDao.byIds";
+
+  /** Name of the id list parameter of {@link #TEMPLATE_BY_IDS}. */
+  private static final String PARAM_IDS = "ids";
+
+  /** Name of the template to count all objects of the generic type. */
+  private static final String TEMPLATE_COUNT = "genericDao.count";
+
+  /** Prefix of the projection templates, followed by the projection type and the attribute names. */
+  private static final String TEMPLATE_PROJECTION = "genericDao.as.";
+
   /** The class of the generic type. */
   private Class<T> type;
 
+  /** JPQL query to find all objects of the generic type. */
+  private String findAllQuery;
+
   @Inject
   private transient EntityManager entityManager;
 
+  @Inject
+  @Writing
+  private transient Instance<EntityManager> writingEntityManagers;
+
+  private transient EntityManager writingEntityManager;
+
+  /** Metrics of the DAOs of the generic type, shared by all instances. */
+  private transient DaoMetrics metrics;
+
+  /** Slow query log of the persistence unit, resolved on first use. */
+  private transient SlowQueryLog slowQueryLog;
+
   /**
    * Default constructor which calls the init() method.
    */
@@ -61,6 +167,8 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
 
     ParameterizedType pt = (ParameterizedType) generic;
     type = (Class<T>) pt.getActualTypeArguments()[0];
+    findAllQuery = "FROM " + type.getName();
+    metrics = DaoMetrics.of(type);
   }
 
   /**
@@ -79,6 +187,163 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
     this.entityManager = em;
   }
 
+  /**
+   * Returns the EntityManager used by the writing methods (create, update, delete and the set based statements).
+   * This is the EntityManager qualified with {@link Writing}, if one is produced, otherwise the default EntityManager.
+   *
+   * Note: If reads and writes of one JTA transaction use different datasources, both take part in the transaction.
+   * So both datasources must be XA datasources (see Configs/Wildfly-18/standalone.xml), otherwise the transaction
+   * fails when the second datasource is enlisted.
+   *
+   * @return EntityManager to be used for writing
+   */
+  protected EntityManager getWritingEntityManager() {
+    if (null != writingEntityManager) {
+      return writingEntityManager;
+    }
+    if (null != writingEntityManagers && !writingEntityManagers.isUnsatisfied()) {
+      return writingEntityManagers.get();
+    }
+    return getEntityManager();
+  }
+
+  /**
+   * Setter for the EntityManager used by the writing methods.
+   */
+  protected void setWritingEntityManager(EntityManager em) {
+    this.writingEntityManager = em;
+  }
+
+  /**
+   * Returns the SQL dialect of the persistence unit, e.g. to decide if database specific (native) SQL can be used.
+   *
+   * @return Dialect of the persistence unit
+   */
+  protected Dialect getDialect() {
+    return getEntityManager().getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices()
+            .getDialect();
+  }
+
+  /**
+   * Returns the metrics (latency, rows and failures) of the operations and queries of the DAOs of the dynamic type.
+   * Subclasses can record their own queries with it, e.g. native queries.
+   *
+   * @return Metrics of the dynamic type
+   */
+  protected DaoMetrics getMetrics() {
+    if (null == metrics) {
+      metrics = DaoMetrics.of(type);
+    }
+    return metrics;
+  }
+
+  /**
+   * Records a successful operation and the size of the persistence context afterwards.
+   * Called on the hot path, so no objects are allocated.
+   */
+  private void recordOperation(DaoMetrics daoMetrics, DaoOperation operation, long start, long rows,
+      EntityManager entityManager) {
+
+    if (daoMetrics.isRecording(start)) {
+      daoMetrics.record(operation, start, rows);
+      recordPersistenceContextSize(daoMetrics, entityManager);
+    }
+  }
+
+  private static void recordPersistenceContextSize(DaoMetrics daoMetrics, EntityManager entityManager) {
+    daoMetrics.recordPersistenceContextSize(
+        entityManager.unwrap(SessionImplementor.class).getPersistenceContext().getNumberOfManagedEntities());
+  }
+
+  /**
+   * Returns the query string identifying the query in the metrics. Criteria queries are rendered to JPQL by Hibernate
+   * once, so the same criteria query (e.g. a template) always has the same string.
+   */
+  private static String getQueryString(TypedQuery<?> typedQuery) {
+    return DaoMetrics.isEnabled() ? typedQuery.unwrap(Query.class).getQueryString() : null;
+  }
+
+  /**
+   * Returns the slow query log of the persistence unit. Queries exceeding its threshold are logged with their SQL,
+   * bind parameters and (on Oracle, if enabled) execution plan.
+   *
+   * @return Slow query log of the persistence unit
+   */
+  protected SlowQueryLog getSlowQueryLog() {
+    if (null == slowQueryLog) {
+      slowQueryLog = SlowQueryLog.of(getEntityManager().getEntityManagerFactory());
+    }
+    return slowQueryLog;
+  }
+
+  /**
+   * Records a slow query in the slow query log. Only called for slow queries, so allocations don't matter here.
+   */
+  private void recordSlowQuery(SlowQueryLog log, long start, TypedQuery<?> typedQuery, String queryString, long rows) {
+    log.record(start, (null != queryString) ? queryString : typedQuery.unwrap(Query.class).getQueryString(),
+            getBinds(typedQuery), rows, (getDialect() instanceof Oracle8iDialect) ? this::explainPlan : null);
+  }
+
+  /**
+   * Formats the bind parameters of the query for the slow query log. Long values (e.g. IN lists) are truncated.
+   */
+  private static String getBinds(TypedQuery<?> typedQuery) {
+    // The Hibernate query also knows the parameters of the criteria literals (literal_handling_mode bind)
+    Query<?> query = typedQuery.unwrap(Query.class);
+    StringJoiner binds = new StringJoiner(", ", "[", "]");
+    for (Parameter<?> parameter : query.getParameterMetadata().collectAllParameters()) {
+      String name = (null != parameter.getName()) ? parameter.getName() : "?" + parameter.getPosition();
+      String value;
+      try {
+        value = String.valueOf(query.getParameterValue(parameter));
+      } catch (IllegalStateException e) {
+        value = "<unbound>";
+      }
+      binds.add(name + "=" + ((value.length() > MAX_BIND_LENGTH)
+              ? value.substring(0, MAX_BIND_LENGTH) + "..."
+              : value));
+    }
+    return binds.toString();
+  }
+
+  /**
+   * Reads the execution plan of the SQL statement using the connection of the current session (Oracle only).
+   */
+  private String explainPlan(String sql) {
+    return getEntityManager().unwrap(Session.class)
+            .doReturningWork(connection -> ExplainPlan.explain(connection, sql));
+  }
+
+  /**
+   * Executes the query in the read mode of the DAO and records its metrics.
+   */
+  private <E> List<E> getResultList(TypedQuery<E> typedQuery) {
+
+    DaoMetrics daoMetrics = getMetrics();
+    SlowQueryLog log = getSlowQueryLog();
+    String queryString = getQueryString(typedQuery);
+    long start = daoMetrics.start();
+    long slowQueryStart = log.start();
+    try {
+      List<E> resultList = applyReadMode(typedQuery).getResultList();
+      int rows = (null != resultList) ? resultList.size() : 0;
+
+      if (daoMetrics.isRecording(start)) {
+        daoMetrics.recordQuery(queryString, start, rows);
+        recordPersistenceContextSize(daoMetrics, getEntityManager());
+      }
+      if (log.isSlow(slowQueryStart)) {
+        recordSlowQuery(log, slowQueryStart, typedQuery, queryString, rows);
+      }
+      return resultList;
+    } catch (RuntimeException e) {
+      daoMetrics.recordQueryFailure(queryString, start);
+      throw e;
+    } finally {
+      log.end(slowQueryStart);
+    }
+  }
+
   /**
    * Returns a CriteriaBuilder.
    *
@@ -90,6 +355,116 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
 
 
 
+  /**
+   * Creates a TypedQuery from a CriteriaQuery template. The template is built only once per DAO type, name and
+   * persistence unit, so the criteria tree is not rebuilt on every call. Values must be passed as
+   * ParameterExpressions and bound to the returned query, so the generated SQL stays the same and is served from the
+   * query plan cache.
+   * The template must not be changed after it was built.
+   *
+   * @param name
+   *          Name of the template, unique per DAO type
+   * @param factory
+   *          Factory to build the template
+   * @param <E> Generic Type
+   * @return TypedQuery to bind the parameters and to be executed
+   */
+  protected <E> TypedQuery<E> createTemplateQuery(String name, Function<CriteriaBuilder, CriteriaQuery<E>> factory) {
+
+    EntityManager entityManager = getEntityManager();
+    CriteriaQuery<E> template = QueryTemplateRegistry.get(entityManager.getEntityManagerFactory(),
+            getClass().getName() + "." + name, () -> factory.apply(entityManager.getCriteriaBuilder()));
+
+    return entityManager.createQuery(template);
+  }
+
+  /**
+   * Releases the query templates of the persistence unit (see {@link #createTemplateQuery(String, Function)}). Must be
+   * called before the persistence unit is closed, e.g. on undeployment, otherwise the templates keep it reachable if
+   * the GenericDao classes outlive the deployment.
+   *
+   * @param entityManagerFactory
+   *          The persistence unit
+   */
+  public static void releaseQueryTemplates(EntityManagerFactory entityManagerFactory) {
+    QueryTemplateRegistry.remove(entityManagerFactory);
+  }
+
+  /**
+   * Marks a TypedQuery as cacheable, so its results are stored in the query cache of the persistence unit.
+   * Only useful for queries of entities which are cacheable themselves, otherwise every cached result leads to
+   * one select per entity.
+   *
+   * @param typedQuery Query to be cached
+   * @param <E> Generic Type
+   * @return The passed query
+   */
+  protected <E> TypedQuery<E> cacheable(TypedQuery<E> typedQuery) {
+    typedQuery.setHint(QueryHints.HINT_CACHEABLE, true);
+
+    return typedQuery;
+  }
+
+  /**
+   * Applies the named entity graph as load graph to a TypedQuery, so the associations of the graph are fetched by
+   * the query itself instead of one select per result. Associations which are not part of the graph are loaded as
+   * defined by their mapping.
+   *
+   * @param typedQuery Query to be executed
+   * @param graphName Name of the entity graph (see javax.persistence.NamedEntityGraph)
+   * @param <E> Generic Type
+   * @return The passed query
+   * @throws IllegalArgumentException if there is no entity graph with the given name
+   */
+  protected <E> TypedQuery<E> withEntityGraph(TypedQuery<E> typedQuery, String graphName) {
+    typedQuery.setHint(QueryHints.HINT_LOADGRAPH, getEntityManager().getEntityGraph(graphName));
+
+    return typedQuery;
+  }
+
+  /**
+   * Defines if the DAO reads in read-only mode, see {@link #readOnly(Supplier)}.
+   * Can be overridden by DAOs which are only used for reading. The queries of the DAO are executed with the read-only
+   * hint and flush mode COMMIT, objects loaded by id are read-only as well.
+   *
+   * Warning: Changes of read-only objects are not written to the database and pending changes are not flushed
+   * before the queries of the DAO!
+   *
+   * @return true if all reads of the DAO are read-only
+   */
+  protected boolean isReadOnly() {
+    return false;
+  }
+
+  @Override
+  public <R> R readOnly(Supplier<R> work) {
+
+    Session session = getEntityManager().unwrap(Session.class);
+    boolean defaultReadOnly = session.isDefaultReadOnly();
+    FlushMode flushMode = session.getHibernateFlushMode();
+
+    session.setDefaultReadOnly(true);
+    session.setHibernateFlushMode(FlushMode.MANUAL);
+    try {
+      return work.get();
+    } finally {
+      session.setHibernateFlushMode(flushMode);
+      session.setDefaultReadOnly(defaultReadOnly);
+    }
+  }
+
+  /**
+   * Applies the read-only hint and flush mode COMMIT to the query, if the DAO is in read-only mode.
+   */
+  private <E> TypedQuery<E> applyReadMode(TypedQuery<E> typedQuery) {
+
+    if (isReadOnly()) {
+      typedQuery.setHint(QueryHints.HINT_READONLY, true);
+      typedQuery.setFlushMode(FlushModeType.COMMIT);
+    }
+    return typedQuery;
+  }
+
   /**
    * Executes a TypedQuery to return a list of results.
    *
@@ -99,7 +474,7 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
    */
   protected <E> List<E> findByTypedQuery(TypedQuery<E> typedQuery) {
 
-    List<E> returnValue = typedQuery.getResultList();
+    List<E> returnValue = getResultList(typedQuery);
 
     returnValue = (null != returnValue) ? returnValue : Collections.emptyList();
 
@@ -119,7 +494,7 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
     if (maxResults > 0) {
       typedQuery.setMaxResults(maxResults);
     }
-    List<E> returnValue = typedQuery.getResultList();
+    List<E> returnValue = getResultList(typedQuery);
 
     returnValue = (null != returnValue) ? returnValue : Collections.emptyList();
 
@@ -149,6 +524,7 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
 
   /**
    * Executes a TypedQuery and returns the first result of the result list, if it contains exactly one result.
+   * At most two rows are read, which is enough to detect that the result is not unique.
    *
    * @param typedQuery Query to be executed
    * @param <E> Generic Type
@@ -156,7 +532,7 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
    */
   protected <E> Optional<E> findByTypedQuerySingleResult(TypedQuery<E> typedQuery) {
 
-    List<E> resultList = findByTypedQuery(typedQuery);
+    List<E> resultList = findByTypedQuery(typedQuery, TWO_RESULTS);
 
     E returnValue = null;
     if (resultList.size() == ONE_RESULT) {
@@ -169,6 +545,7 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
   /**
    * Executes a TypedQuery and returns the first result of the result list, if it contains exactly one result.
    * If the result does not contain exactly one element a NoResultException is thrown.
+   * At most two rows are read, which is enough to detect that the result is not unique.
    *
    * Warning: The NoResultException forces the EntityManager to set the transaction on rollback!
    *
@@ -182,7 +559,27 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
    */
   protected <E> Optional<E> findByTypedQueryStrictlySingleResult(TypedQuery<E> typedQuery) throws NoResultException {
 
-    E returnValue = typedQuery.getSingleResult();
+    DaoMetrics daoMetrics = getMetrics();
+    SlowQueryLog log = getSlowQueryLog();
+    String queryString = getQueryString(typedQuery);
+    long start = daoMetrics.start();
+    long slowQueryStart = log.start();
+    E returnValue;
+    try {
+      returnValue = applyReadMode(typedQuery).setMaxResults(TWO_RESULTS).getSingleResult();
+      if (log.isSlow(slowQueryStart)) {
+        recordSlowQuery(log, slowQueryStart, typedQuery, queryString, ONE_RESULT);
+      }
+    } catch (RuntimeException e) {
+      daoMetrics.recordQueryFailure(queryString, start);
+      throw e;
+    } finally {
+      log.end(slowQueryStart);
+    }
+    if (daoMetrics.isRecording(start)) {
+      daoMetrics.recordQuery(queryString, start, ONE_RESULT);
+      recordPersistenceContextSize(daoMetrics, getEntityManager());
+    }
 
     return Optional.ofNullable(returnValue);
   }
@@ -282,12 +679,21 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
 
   @Override
   public T create(T generic, boolean flush) {
-    EntityManager entityManager = getEntityManager();
-    entityManager.persist(generic);
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    EntityManager entityManager = getWritingEntityManager();
+    try {
+      persist(generic);
+      evictReadingQueryCache();
 
-    if (flush) {
-      entityManager.flush();
+      if (flush) {
+        entityManager.flush();
+      }
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.CREATE, start);
+      throw e;
     }
+    recordOperation(daoMetrics, DaoOperation.CREATE, start, ONE_RESULT, entityManager);
     return generic;
   }
 
@@ -300,13 +706,23 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
   public List<T> create(List<T> genericList, boolean flush) {
 
     if (null != genericList && !genericList.isEmpty()) {
-      for (T t : genericList) {
-        create(t, FLUSH_MODE_LOOP);
-      }
-
-      if (flush) {
-        getEntityManager().flush();
+      DaoMetrics daoMetrics = getMetrics();
+      long start = daoMetrics.start();
+      EntityManager entityManager = getWritingEntityManager();
+      try {
+        for (T t : genericList) {
+          persist(t);
+        }
+        evictReadingQueryCache();
+
+        if (flush) {
+          entityManager.flush();
+        }
+      } catch (RuntimeException e) {
+        daoMetrics.recordFailure(DaoOperation.CREATE, start);
+        throw e;
       }
+      recordOperation(daoMetrics, DaoOperation.CREATE, start, genericList.size(), entityManager);
     }
 
     return genericList;
@@ -319,16 +735,88 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
 
   @Override
   public T update(T generic, boolean flush) {
-    EntityManager entityManager = getEntityManager();
-    T merge = entityManager.merge(generic);
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    EntityManager entityManager = getWritingEntityManager();
+    T merge;
+    try {
+      merge = mergeAndEvict(generic);
+      evictReadingQueryCache();
 
-    if (flush) {
-      entityManager.flush();
+      if (flush) {
+        entityManager.flush();
+      }
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.UPDATE, start);
+      throw e;
     }
+    recordOperation(daoMetrics, DaoOperation.UPDATE, start, ONE_RESULT, entityManager);
+
+    return merge;
+  }
+
+  /**
+   * Merges the object and evicts it from the second level cache, so no stale state is read from the cache.
+   *
+   * @param generic
+   *          Object to be merged
+   * @return The merged object
+   */
+  private T mergeAndEvict(T generic) {
+    EntityManager entityManager = getWritingEntityManager();
+    T merge = entityManager.merge(generic);
+
+    Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(merge);
+    evictFromCache(id);
+    afterUpdate(merge);
 
     return merge;
   }
 
+  /**
+   * Persists the object and calls the create hook.
+   *
+   * @param generic
+   *          Object to be persisted
+   */
+  private void persist(T generic) {
+    getWritingEntityManager().persist(generic);
+    afterCreate(generic);
+  }
+
+  /**
+   * Hook which is called after an object was persisted by one of the create methods.
+   * Can be overridden to invalidate caches. Does nothing by default.
+   *
+   * @param created
+   *          The persisted object
+   */
+  protected void afterCreate(T created) {
+    // Nothing to do by default
+  }
+
+  /**
+   * Hook which is called after an object was merged by one of the update methods.
+   * Can be overridden to invalidate caches. Does nothing by default.
+   *
+   * @param updated
+   *          The merged object
+   */
+  protected void afterUpdate(T updated) {
+    // Nothing to do by default
+  }
+
+  /**
+   * Hook which is called after an object was removed by one of the delete methods.
+   * Can be overridden to invalidate caches. Does nothing by default.
+   *
+   * @param deleted
+   *          The removed object
+   */
+  protected void afterDelete(T deleted) {
+    // Nothing to do by default
+  }
+
   @Override
   public List<T> update(List<T> genericList) {
     return update(genericList, FLUSH_MODE_DEFAULT);
@@ -340,16 +828,26 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
     List<T> returnValue = null;
 
     if (null != genericList && !genericList.isEmpty()) {
+      DaoMetrics daoMetrics = getMetrics();
+      long start = daoMetrics.start();
+      EntityManager entityManager = getWritingEntityManager();
       // To increase performance, initialize the result list with size of the input list.
       returnValue = new ArrayList<T>(genericList.size());
 
-      for (T t : genericList) {
-        returnValue.add(update(t, FLUSH_MODE_LOOP));
-      }
-
-      if (flush) {
-        getEntityManager().flush();
+      try {
+        for (T t : genericList) {
+          returnValue.add(mergeAndEvict(t));
+        }
+        evictReadingQueryCache();
+
+        if (flush) {
+          entityManager.flush();
+        }
+      } catch (RuntimeException e) {
+        daoMetrics.recordFailure(DaoOperation.UPDATE, start);
+        throw e;
       }
+      recordOperation(daoMetrics, DaoOperation.UPDATE, start, returnValue.size(), entityManager);
     }
 
     returnValue = (null != returnValue) ? returnValue : Collections.emptyList();
@@ -358,96 +856,1013 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
   }
 
   @Override
-  public void delete(Object id) {
-    delete(id, FLUSH_MODE_DEFAULT);
+  public BulkResult createBulk(List<T> genericList) {
+    return createBulk(genericList, getBulkBatchSize());
   }
 
   @Override
-  public void delete(Object id, boolean flush) {
-    EntityManager entityManager = getEntityManager();
-    entityManager.remove(entityManager.getReference(type, id));
-
-    if (flush) {
-      entityManager.flush();
-    }
+  public BulkResult createBulk(List<T> genericList, int batchSize) {
+    return executeBulk(genericList, batchSize, this::persist, DaoOperation.BULK_CREATE);
   }
 
   @Override
-  public Optional<T> find(Object id) {
-
-    Optional<T> returnValue = Optional.empty();
-
-    if (null != id) {
-      T temp = getEntityManager().find(type, id);
-      returnValue = Optional.ofNullable(temp);
-    }
-    return returnValue;
+  public BulkResult updateBulk(List<T> genericList) {
+    return updateBulk(genericList, getBulkBatchSize());
   }
 
   @Override
-  public List<T> findAll() {
-
-    List<T> returnValue = getEntityManager().createQuery("FROM " + type.getName()).getResultList();
-
-    returnValue = (null != returnValue) ? returnValue : Collections.emptyList();
-    return returnValue;
+  public BulkResult updateBulk(List<T> genericList, int batchSize) {
+    return executeBulk(genericList, batchSize, this::mergeAndEvict, DaoOperation.BULK_UPDATE);
   }
 
   /**
-   * Executes a NamedQuery to return a list of results.
-   * The query string is transformed into a TypedQuery, before the parameters are set.
+   * Returns the batch size used by the bulk methods without batch size parameter.
+   * Can be overridden by DAOs which need another batch size.
    *
-   * @param queryString
-   *          Name of the NamedQuery.
-   * @param parameters
-   *          Parameters that should be passed to the query
-   * @return Results, never null
-   * @see #findByTypedQuery(TypedQuery)
+   * @return The default batch size for bulk operations
    */
-  protected List<T> findByNamedQuery(String queryString, Map<String, Object> parameters) {
-    TypedQuery<T> typedQuery = getTypedQuery(queryString, parameters);
-
-    return findByTypedQuery(typedQuery);
+  protected int getBulkBatchSize() {
+    return BULK_BATCH_SIZE_DEFAULT;
   }
 
   /**
-   * Executes a NamedQuery to return a list of results with a maximum of results, using "setmaxResults".
-   * The query string is transformed into a TypedQuery, before the parameters are set.
+   * Executes the given operation for every object of the list and flushes and clears the persistence context after
+   * every batch.
    *
-   * @param queryString
-   *          Name of the NamedQuery.
-   * @param parameters
-   *          Parameters that should be passed to the query
-   * @param maxResults Maximum number of results. Only used if greater then zero.
-   * @return Results, never null
-   * @see #findByTypedQuery(TypedQuery, int)
+   * @param genericList
+   *          Objects to be processed
+   * @param batchSize
+   *          Number of objects after which a flush and clear is done. Values lower than one are treated as one.
+   * @param operation
+   *          Operation to be executed per object, e.g. persist or merge
+   * @param daoOperation
+   *          Operation of the metrics
+   * @return Number of processed rows and the throughput, never null.
    */
-  protected List<T> findByNamedQuery(String queryString, Map<String, Object> parameters, int maxResults) {
-    TypedQuery<T> typedQuery = getTypedQuery(queryString, parameters);
+  private BulkResult executeBulk(List<T> genericList, int batchSize, Consumer<T> operation,
+      DaoOperation daoOperation) {
 
-    return findByTypedQuery(typedQuery, maxResults);
+    if (null == genericList || genericList.isEmpty()) {
+      return BulkResult.EMPTY;
+    }
+
+    EntityManager entityManager = getWritingEntityManager();
+    int effectiveBatchSize = Math.max(1, batchSize);
+    DaoMetrics daoMetrics = getMetrics();
+    long metricsStart = daoMetrics.start();
+    long start = System.nanoTime();
+
+    int count = 0;
+    try {
+      for (T t : genericList) {
+        operation.accept(t);
+
+        if (++count % effectiveBatchSize == 0) {
+          entityManager.flush();
+          entityManager.clear();
+        }
+      }
+      entityManager.flush();
+      entityManager.clear();
+      evictReadingQueryCache();
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(daoOperation, metricsStart);
+      throw e;
+    }
+    daoMetrics.record(daoOperation, metricsStart, count);
+
+    return new BulkResult(count, System.nanoTime() - start);
   }
 
-  /**
-   * Executes a NamedQuery and returns the first result of the result list.
-   * The query string is transformed into a TypedQuery, before the parameters are set.
-   *
-   * @param queryString
-   *          Name of the NamedQuery.
-   * @param parameters
-   *          Parameters that should be passed to the query
-   * @return The first element of the result set
-   * @see #findByTypedQueryFirstResult(TypedQuery)
-   */
-  protected Optional<T> findByNamedQueryFirstResult(String queryString, Map<String, Object> parameters) {
+  @Override
+  public void delete(Object id) {
+    delete(id, FLUSH_MODE_DEFAULT);
+  }
 
-    TypedQuery<T> typedQuery = getTypedQuery(queryString, parameters);
+  @Override
+  public void delete(Object id, boolean flush) {
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    EntityManager entityManager = getWritingEntityManager();
+    try {
+      T reference = entityManager.getReference(type, id);
+      entityManager.remove(reference);
+      evictFromCache(id);
+      evictReadingQueryCache();
+      afterDelete(reference);
 
-    return findByTypedQueryFirstResult(typedQuery);
+      if (flush) {
+        entityManager.flush();
+      }
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.DELETE, start);
+      throw e;
+    }
+    recordOperation(daoMetrics, DaoOperation.DELETE, start, ONE_RESULT, entityManager);
   }
 
-  /**
-   * Executes a NamedQuery and returns the first result of the result list, if it contains exactly one result.
+  @SuppressWarnings("unchecked")
+  @Override
+  public int deleteByIds(Collection<?> ids) {
+
+    List<List<Object>> chunks = DaoUtil.partition((Collection<Object>) ids, DaoUtil.ORACLE_IN_LIMIT);
+    if (chunks.isEmpty()) {
+      return 0;
+    }
+
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    EntityManager entityManager = getWritingEntityManager();
+    int deleted = 0;
+    try {
+      entityManager.flush();
+
+      String idName = getIdAttribute().getName();
+      for (List<Object> chunk : chunks) {
+        CriteriaDelete<T> criteriaDelete = entityManager.getCriteriaBuilder().createCriteriaDelete(type);
+        Root<T> root = criteriaDelete.from(type);
+        criteriaDelete.where(root.get(idName).in(chunk));
+
+        deleted += entityManager.createQuery(criteriaDelete).executeUpdate();
+
+        for (Object id : chunk) {
+          detachFromPersistenceContexts(id);
+          evictFromCache(id);
+        }
+      }
+      evictReadingQueryCache();
+      afterBulkChange();
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.DELETE_BY_IDS, start);
+      throw e;
+    }
+    daoMetrics.record(DaoOperation.DELETE_BY_IDS, start, deleted);
+
+    return deleted;
+  }
+
+  @Override
+  public int deleteWhere(CriteriaCondition<T> condition) {
+
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    EntityManager entityManager = getWritingEntityManager();
+    int deleted;
+    try {
+      entityManager.flush();
+
+      CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+      CriteriaDelete<T> criteriaDelete = builder.createCriteriaDelete(type);
+      Root<T> root = criteriaDelete.from(type);
+      criteriaDelete.where(condition.toPredicate(builder, root));
+
+      deleted = entityManager.createQuery(criteriaDelete).executeUpdate();
+
+      detachAllFromPersistenceContext();
+      evictAllFromCache();
+      evictReadingQueryCache();
+      afterBulkChange();
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.DELETE_WHERE, start);
+      throw e;
+    }
+    daoMetrics.record(DaoOperation.DELETE_WHERE, start, deleted);
+
+    return deleted;
+  }
+
+  @Override
+  public int updateWhere(CriteriaCondition<T> condition, Map<SingularAttribute<? super T, ?>, ?> assignments) {
+
+    if (null == assignments || assignments.isEmpty()) {
+      return 0;
+    }
+
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    EntityManager entityManager = getWritingEntityManager();
+    int updated;
+    try {
+      entityManager.flush();
+
+      CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+      CriteriaUpdate<T> criteriaUpdate = builder.createCriteriaUpdate(type);
+      Root<T> root = criteriaUpdate.from(type);
+      for (Map.Entry<SingularAttribute<? super T, ?>, ?> assignment : assignments.entrySet()) {
+        setValue(builder, criteriaUpdate, root, assignment.getKey(), assignment.getValue());
+      }
+      incrementVersion(entityManager, builder, criteriaUpdate, root, assignments.keySet());
+      criteriaUpdate.where(condition.toPredicate(builder, root));
+
+      updated = entityManager.createQuery(criteriaUpdate).executeUpdate();
+
+      detachAllFromPersistenceContext();
+      evictAllFromCache();
+      evictReadingQueryCache();
+      afterBulkChange();
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.UPDATE_WHERE, start);
+      throw e;
+    }
+    daoMetrics.record(DaoOperation.UPDATE_WHERE, start, updated);
+
+    return updated;
+  }
+
+  /**
+   * Adds the assignment of an attribute to a CriteriaUpdate. NULL values are set as NULL literal.
+   *
+   * @param builder
+   *          The CriteriaBuilder to create the NULL literal
+   * @param criteriaUpdate
+   *          The statement the assignment is added to
+   * @param root
+   *          Root of the statement
+   * @param attribute
+   *          Attribute to be set
+   * @param value
+   *          New value of the attribute
+   * @param <Y> Type of the attribute
+   */
+  @SuppressWarnings("unchecked")
+  private static <Y> void setValue(CriteriaBuilder builder, CriteriaUpdate<?> criteriaUpdate, Root<?> root,
+      SingularAttribute<?, Y> attribute, Object value) {
+
+    Path<Y> path = root.get(attribute.getName());
+    Expression<? extends Y> expression = (null == value)
+            ? builder.nullLiteral(attribute.getJavaType())
+            : builder.literal((Y) value);
+    criteriaUpdate.set(path, expression);
+  }
+
+  /**
+   * Set based statements bypass the version check of Hibernate, so the statement increments the version itself.
+   * Otherwise optimistic updates of other transactions would overwrite the change without noticing it.
+   * Nothing is done if the dynamic type has no numeric version or the version is assigned explicitly.
+   */
+  private void incrementVersion(EntityManager entityManager, CriteriaBuilder builder, CriteriaUpdate<T> criteriaUpdate,
+      Root<T> root, Collection<SingularAttribute<? super T, ?>> assigned) {
+
+    EntityPersister persister = getPersister(entityManager);
+    if (persister.isVersioned() && Number.class.isAssignableFrom(persister.getVersionType().getReturnedClass())) {
+      String versionName = persister.getPropertyNames()[persister.getVersionProperty()];
+
+      if (assigned.stream().noneMatch(attribute -> versionName.equals(attribute.getName()))) {
+        // One in the type of the version (next of the initial version), otherwise the binding of the sum fails
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        VersionType<Object> versionType = getVersionType(persister);
+        Number one = (Number) versionType.next(versionType.seed(session), session);
+
+        Path<Number> version = root.get(versionName);
+        criteriaUpdate.set(version, builder.sum(version, one));
+      }
+    }
+  }
+
+  @Override
+  public Optional<T> updateWithRetry(Object id, Consumer<? super T> change) {
+
+    if (null == id) {
+      return Optional.empty();
+    }
+
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    EntityManager entityManager = getWritingEntityManager();
+    T updated = null;
+    try {
+      EntityPersister persister = getPersister(entityManager);
+      if (!persister.isVersioned()) {
+        throw new IllegalStateException("No version attribute found for " + type.getName());
+      }
+      entityManager.flush();
+
+      int attempts = Math.max(1, getUpdateAttempts());
+      for (int attempt = 1; null == updated; attempt++) {
+        T current = findCurrent(entityManager, id);
+        if (null == current) {
+          break;
+        }
+
+        if (compareAndSet(entityManager, persister, id, current, change)) {
+          updated = current;
+        } else {
+          daoMetrics.recordOptimisticLockConflict();
+          if (attempt >= attempts) {
+            throw new OptimisticLockException("Object of " + type.getName() + " with id " + id
+                    + " was changed by another transaction in all " + attempts + " attempts", null, current);
+          }
+          backoff(attempt);
+        }
+      }
+
+      if (null != updated) {
+        evictFromCache(id);
+        evictReadingQueryCache();
+        afterUpdate(updated);
+      }
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.OPTIMISTIC_UPDATE, start);
+      throw e;
+    }
+    recordOperation(daoMetrics, DaoOperation.OPTIMISTIC_UPDATE, start, (null != updated) ? ONE_RESULT : 0,
+            entityManager);
+
+    return Optional.ofNullable(updated);
+  }
+
+  /**
+   * Reads the current state of the object from the database, bypassing the caches. A temporary persistence context
+   * sharing the connection (and so the transaction) of the EntityManager is used, so objects managed by the
+   * persistence contexts of the caller are neither returned nor detached.
+   *
+   * @return The current state of the object (detached), NULL if there is no object with the id
+   */
+  private T findCurrent(EntityManager entityManager, Object id) {
+    try (Session current = entityManager.unwrap(Session.class).sessionWithOptions().connection().openSession()) {
+      return current.find(type, id, BYPASS_CACHE);
+    }
+  }
+
+  /**
+   * Applies the change to the detached object and writes the changed attributes and the next version with one UPDATE
+   * statement, if the version in the database is still the version of the object. Nothing is written if the change
+   * did not change any attribute.
+   *
+   * @return true if the object was written (or not changed), false if it was changed by another transaction
+   */
+  private boolean compareAndSet(EntityManager entityManager, EntityPersister persister, Object id, T current,
+      Consumer<? super T> change) {
+
+    SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+    Object[] before = persister.getPropertyValues(current);
+    change.accept(current);
+    Object[] after = persister.getPropertyValues(current);
+
+    int[] dirty = persister.findDirty(after, before, current, session);
+    if (null == dirty) {
+      return true;
+    }
+
+    String[] names = persister.getPropertyNames();
+    int versionProperty = persister.getVersionProperty();
+    Object version = before[versionProperty];
+    Object nextVersion = getVersionType(persister).next(version, session);
+
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaUpdate<T> criteriaUpdate = builder.createCriteriaUpdate(type);
+    Root<T> root = criteriaUpdate.from(type);
+    Map<String, Object> binds = new HashMap<>();
+    for (int property : dirty) {
+      if (property != versionProperty) {
+        setParameter(builder, criteriaUpdate, root.get(names[property]), after[property], binds);
+      }
+    }
+    Path<Object> idPath = root.get(getIdAttribute().getName());
+    Path<Object> versionPath = root.get(names[versionProperty]);
+    setParameter(builder, criteriaUpdate, versionPath, nextVersion, binds);
+    criteriaUpdate.where(builder.equal(idPath, addParameter(builder, idPath, id, binds)),
+            builder.equal(versionPath, addParameter(builder, versionPath, version, binds)));
+
+    javax.persistence.Query query = entityManager.createQuery(criteriaUpdate);
+    binds.forEach(query::setParameter);
+    if (0 == query.executeUpdate()) {
+      return false;
+    }
+
+    persister.setPropertyValue(current, versionProperty, nextVersion);
+    return true;
+  }
+
+  /**
+   * Adds the assignment of an attribute to a CriteriaUpdate, see {@link #addParameter(CriteriaBuilder, Path, Object,
+   * Map)}.
+   */
+  private static <Y> void setParameter(CriteriaBuilder builder, CriteriaUpdate<?> criteriaUpdate, Path<Y> path,
+      Object value, Map<String, Object> binds) {
+
+    Expression<? extends Y> parameter = addParameter(builder, path, value, binds);
+    criteriaUpdate.set(path, parameter);
+  }
+
+  /**
+   * Creates a named parameter for the value instead of a literal, so the statement is the same for all values and its
+   * cursor can be shared.
+   *
+   * @param builder
+   *          The CriteriaBuilder to create the parameter
+   * @param path
+   *          Path the parameter is compared with or assigned to, defines the type of the parameter
+   * @param value
+   *          Value of the parameter, NULL is allowed
+   * @param binds
+   *          Values by parameter name, the value is added to it
+   * @param <Y> Type of the path
+   * @return The parameter
+   */
+  @SuppressWarnings("unchecked")
+  private static <Y> Expression<Y> addParameter(CriteriaBuilder builder, Path<Y> path, Object value,
+      Map<String, Object> binds) {
+
+    String name = "p" + binds.size();
+    binds.put(name, value);
+    return builder.parameter((Class<Y>) path.getJavaType(), name);
+  }
+
+  /**
+   * Waits before the next attempt of an optimistic update, see {@link DaoUtil#backoffMillis(int, long, long, double)}.
+   *
+   * @param attempt
+   *          Number of the failed attempt, starting with one
+   */
+  private void backoff(int attempt) {
+    long millis = DaoUtil.backoffMillis(attempt, getUpdateBackoffMillis(), UPDATE_BACKOFF_MAX_MILLIS,
+            ThreadLocalRandom.current().nextDouble());
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OptimisticLockException("Interrupted while waiting for the next attempt", e);
+    }
+  }
+
+  /**
+   * Returns the number of attempts of {@link #updateWithRetry(Object, Consumer)} before a conflict is thrown.
+   * Can be overridden by DAOs with more or less contention.
+   *
+   * @return The number of attempts, values lower than one are treated as one
+   */
+  protected int getUpdateAttempts() {
+    return UPDATE_ATTEMPTS_DEFAULT;
+  }
+
+  /**
+   * Returns the wait time after the first conflict of {@link #updateWithRetry(Object, Consumer)}. It is doubled with
+   * every further conflict and randomized, so the conflicting writers do not collide again.
+   * Can be overridden by DAOs which need another wait time.
+   *
+   * @return The wait time in milliseconds
+   */
+  protected long getUpdateBackoffMillis() {
+    return UPDATE_BACKOFF_MILLIS_DEFAULT;
+  }
+
+  private EntityPersister getPersister(EntityManager entityManager) {
+    return entityManager.unwrap(SessionImplementor.class).getFactory().getMetamodel().entityPersister(type);
+  }
+
+  /**
+   * The persister only returns the raw version type. Its values are the ones read by the persister, so the cast is
+   * safe.
+   */
+  private static VersionType<Object> getVersionType(EntityPersister persister) {
+    @SuppressWarnings("unchecked")
+    VersionType<Object> versionType = (VersionType<Object>) persister.getVersionType();
+    return versionType;
+  }
+
+  /**
+   * Hook which is called after objects were changed by a set based statement (deleteByIds, deleteWhere or
+   * updateWhere). The changed objects are not known, so caches should be invalidated completely.
+   * Does nothing by default.
+   */
+  protected void afterBulkChange() {
+    // Nothing to do by default
+  }
+
+  /**
+   * Returns the object with the given id, if it is already managed by the persistence context.
+   * Does not hit the database or the second level cache.
+   *
+   * @param id
+   *          Id of the object
+   * @return The managed object, empty if it is not managed.
+   */
+  protected Optional<T> findInPersistenceContext(Object id) {
+
+    return findInPersistenceContext(getEntityManager(), id);
+  }
+
+  private Optional<T> findInPersistenceContext(EntityManager entityManager, Object id) {
+
+    if (null == id) {
+      return Optional.empty();
+    }
+
+    SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+    EntityPersister persister = session.getFactory().getMetamodel().entityPersister(type);
+    Object entity = session.getPersistenceContext().getEntity(session.generateEntityKey((Serializable) id, persister));
+
+    return Optional.ofNullable(type.isInstance(entity) ? type.cast(entity) : null);
+  }
+
+  /**
+   * Detaches the object with the given id from the persistence contexts used for reading and writing.
+   */
+  private void detachFromPersistenceContexts(Object id) {
+    for (EntityManager entityManager : getEntityManagers()) {
+      findInPersistenceContext(entityManager, id).ifPresent(entityManager::detach);
+    }
+  }
+
+  /**
+   * @return The EntityManagers used for reading (all replicas, see ReplicaRouter) and writing, each one only once
+   */
+  private Collection<EntityManager> getEntityManagers() {
+    EntityManager reading = getEntityManager();
+    EntityManager writing = getWritingEntityManager();
+
+    List<EntityManager> entityManagers = new ArrayList<>(ReplicaRouter.resolve(reading));
+    if (writing != reading && !entityManagers.contains(writing)) {
+      entityManagers.add(writing);
+    }
+    return entityManagers;
+  }
+
+  /**
+   * Detaches all objects of the dynamic type from the persistence context, e.g. after a set based statement which
+   * changed an unknown set of objects. Objects of other types stay managed.
+   * Both persistence contexts, used for reading and writing, are affected.
+   */
+  protected void detachAllFromPersistenceContext() {
+
+    for (EntityManager entityManager : getEntityManagers()) {
+      SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+
+      for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+        if (type.isInstance(entry.getKey())) {
+          entityManager.detach(entry.getKey());
+        }
+      }
+    }
+  }
+
+  /**
+   * Each persistence unit has its own second level cache, so the object is evicted from the caches of the units used
+   * for reading and writing.
+   */
+  @Override
+  public void evictFromCache(Object id) {
+    if (null != id) {
+      for (EntityManager entityManager : getEntityManagers()) {
+        entityManager.getEntityManagerFactory().getCache().evict(type, id);
+      }
+    }
+  }
+
+  @Override
+  public void evictAllFromCache() {
+    for (EntityManager entityManager : getEntityManagers()) {
+      entityManager.getEntityManagerFactory().getCache().evict(type);
+    }
+  }
+
+  /**
+   * The query caches of the reading persistence units do not notice writes of another persistence unit, so their
+   * results are evicted after every write. Does nothing if reads and writes use the same persistence unit.
+   */
+  private void evictReadingQueryCache() {
+    EntityManagerFactory writing = getWritingEntityManager().getEntityManagerFactory();
+
+    for (EntityManager reading : ReplicaRouter.resolve(getEntityManager())) {
+      EntityManagerFactory readingFactory = reading.getEntityManagerFactory();
+      if (readingFactory != writing) {
+        readingFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+      }
+    }
+  }
+
+  @Override
+  public Optional<T> find(Object id) {
+
+    Optional<T> returnValue = Optional.empty();
+
+    if (null != id) {
+      DaoMetrics daoMetrics = getMetrics();
+      long start = daoMetrics.start();
+      EntityManager entityManager = getEntityManager();
+      T temp;
+      try {
+        temp = isReadOnly() ? readOnly(() -> entityManager.find(type, id)) : entityManager.find(type, id);
+      } catch (RuntimeException e) {
+        daoMetrics.recordFailure(DaoOperation.FIND, start);
+        throw e;
+      }
+      recordOperation(daoMetrics, DaoOperation.FIND, start, (null != temp) ? ONE_RESULT : 0, entityManager);
+      returnValue = Optional.ofNullable(temp);
+    }
+    return returnValue;
+  }
+
+  @Override
+  public Optional<T> find(Object id, String graphName) {
+
+    Optional<T> returnValue = Optional.empty();
+
+    if (null != id) {
+      DaoMetrics daoMetrics = getMetrics();
+      long start = daoMetrics.start();
+      EntityManager entityManager = getEntityManager();
+      T temp;
+      try {
+        Map<String, Object> hints = Collections.singletonMap(QueryHints.HINT_LOADGRAPH,
+                entityManager.getEntityGraph(graphName));
+        temp = isReadOnly()
+                ? readOnly(() -> entityManager.find(type, id, hints))
+                : entityManager.find(type, id, hints);
+      } catch (RuntimeException e) {
+        daoMetrics.recordFailure(DaoOperation.FIND, start);
+        throw e;
+      }
+      recordOperation(daoMetrics, DaoOperation.FIND, start, (null != temp) ? ONE_RESULT : 0, entityManager);
+      returnValue = Optional.ofNullable(temp);
+    }
+    return returnValue;
+  }
+
+  @Override
+  public List<T> findAllById(Collection<?> ids) {
+    return new ArrayList<>(findAllByIdAsMap(ids).values());
+  }
+
+  @Override
+  public <K> Map<K, T> findAllByIdAsMap(Collection<K> ids) {
+
+    List<List<K>> chunks = DaoUtil.partition(ids, DaoUtil.ORACLE_IN_LIMIT);
+    if (chunks.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    // Managed and loaded objects are found by the id in the type of the id attribute, not by the passed id
+    Class<?> idType = getIdAttribute().getJavaType();
+    Map<K, Object> typedIds = new LinkedHashMap<>();
+    for (List<K> chunk : chunks) {
+      for (K id : chunk) {
+        typedIds.put(id, DaoUtil.toIdType(id, idType));
+      }
+    }
+
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    EntityManager entityManager = getEntityManager();
+    Map<Object, T> found = new HashMap<>();
+    try {
+      List<Object> misses = new ArrayList<>();
+      for (Object typedId : typedIds.values()) {
+        Optional<T> managed = findInPersistenceContext(entityManager, typedId);
+        if (managed.isPresent()) {
+          found.put(typedId, managed.get());
+        } else {
+          misses.add(typedId);
+        }
+      }
+
+      // The misses are chunked again, so every statement uses the full IN list
+      PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+      for (List<Object> chunk : DaoUtil.partition(misses, DaoUtil.ORACLE_IN_LIMIT)) {
+        TypedQuery<T> typedQuery = createTemplateQuery(TEMPLATE_BY_IDS, builder -> {
+          CriteriaQuery<T> criteriaQuery = builder.createQuery(type);
+          Root<T> root = criteriaQuery.from(type);
+          criteriaQuery.where(root.get(getIdAttribute()).in(builder.parameter(Collection.class, PARAM_IDS)));
+          return criteriaQuery;
+        });
+        typedQuery.setParameter(PARAM_IDS, chunk);
+
+        for (T loaded : findByTypedQuery(typedQuery)) {
+          found.put(persistenceUnitUtil.getIdentifier(loaded), loaded);
+        }
+      }
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.FIND_BY_IDS, start);
+      throw e;
+    }
+
+    Map<K, T> returnValue = new LinkedHashMap<>(found.size() * 2);
+    typedIds.forEach((id, typedId) -> {
+      T object = found.get(typedId);
+      if (null != object) {
+        returnValue.put(id, object);
+      }
+    });
+    recordOperation(daoMetrics, DaoOperation.FIND_BY_IDS, start, returnValue.size(), entityManager);
+
+    return returnValue;
+  }
+
+  @Override
+  public List<T> findAll() {
+    return findByTypedQuery(getEntityManager().createQuery(findAllQuery, type));
+  }
+
+  @Override
+  public List<T> findAll(String graphName) {
+    return findByTypedQuery(withEntityGraph(getEntityManager().createQuery(findAllQuery, type), graphName));
+  }
+
+  @Override
+  public long count() {
+    return getCount(createTemplateQuery(TEMPLATE_COUNT, builder -> {
+      CriteriaQuery<Long> criteriaQuery = builder.createQuery(Long.class);
+      criteriaQuery.select(builder.count(criteriaQuery.from(type)));
+      return criteriaQuery;
+    }));
+  }
+
+  @Override
+  public long count(CriteriaCondition<T> condition) {
+
+    CriteriaBuilder builder = getCriteriaBuilder();
+    CriteriaQuery<Long> criteriaQuery = builder.createQuery(Long.class);
+    Root<T> root = criteriaQuery.from(type);
+    criteriaQuery.select(builder.count(root));
+    criteriaQuery.where(condition.toPredicate(builder, root));
+
+    return getCount(getEntityManager().createQuery(criteriaQuery));
+  }
+
+  /**
+   * Executes a count query, which always returns one row (no row limit needed).
+   */
+  private long getCount(TypedQuery<Long> typedQuery) {
+    List<Long> resultList = findByTypedQuery(typedQuery);
+    return resultList.isEmpty() ? 0L : resultList.get(0);
+  }
+
+  @Override
+  public boolean exists(CriteriaCondition<T> condition) {
+
+    CriteriaBuilder builder = getCriteriaBuilder();
+    CriteriaQuery<Object> criteriaQuery = builder.createQuery(Object.class);
+    Root<T> root = criteriaQuery.from(type);
+    criteriaQuery.select(root.get(getIdAttribute()));
+    criteriaQuery.where(condition.toPredicate(builder, root));
+
+    return findByCriteriaQueryFirstResult(criteriaQuery).isPresent();
+  }
+
+  @Override
+  public <P> List<P> findAllAs(Class<P> projectionType, List<SingularAttribute<? super T, ?>> attributes) {
+
+    String name = TEMPLATE_PROJECTION + projectionType.getName()
+            + attributes.stream().map(Attribute::getName).collect(Collectors.joining(",", "(", ")"));
+
+    return findByTypedQuery(createTemplateQuery(name,
+        builder -> createProjectionQuery(builder, projectionType, null, attributes)));
+  }
+
+  @Override
+  public <P> List<P> findAs(Class<P> projectionType, CriteriaCondition<T> condition,
+      List<SingularAttribute<? super T, ?>> attributes) {
+
+    return findByCriteriaQuery(createProjectionQuery(getCriteriaBuilder(), projectionType, condition, attributes));
+  }
+
+  /**
+   * Creates a CriteriaQuery selecting the attributes with a constructor expression of the projection type.
+   *
+   * @param builder CriteriaBuilder to be used
+   * @param projectionType Type of the results
+   * @param condition Condition of the objects to be selected, NULL for all objects
+   * @param attributes Attributes to be selected
+   * @param <P> Type of the projection
+   * @return CriteriaQuery ordered by the id
+   */
+  private <P> CriteriaQuery<P> createProjectionQuery(CriteriaBuilder builder, Class<P> projectionType,
+      CriteriaCondition<T> condition, List<SingularAttribute<? super T, ?>> attributes) {
+
+    if (attributes.isEmpty()) {
+      throw new IllegalArgumentException("At least one attribute must be selected for " + projectionType.getName());
+    }
+
+    CriteriaQuery<P> criteriaQuery = builder.createQuery(projectionType);
+    Root<T> root = criteriaQuery.from(type);
+
+    Selection<?>[] selections = attributes.stream().map(attribute -> root.get(attribute)).toArray(Selection[]::new);
+    criteriaQuery.select(builder.construct(projectionType, selections));
+    if (null != condition) {
+      criteriaQuery.where(condition.toPredicate(builder, root));
+    }
+    criteriaQuery.orderBy(builder.asc(root.get(getIdAttribute())));
+
+    return criteriaQuery;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  @Override
+  public <K extends Comparable<? super K>> KeysetPage<T, K> findPage(SingularAttribute<? super T, K> sortKey,
+      PageToken<K> lastSeen, int pageSize) {
+
+    int effectivePageSize = Math.max(1, pageSize);
+    SingularAttribute<? super T, ?> idAttribute = getIdAttribute();
+
+    CriteriaBuilder builder = getCriteriaBuilder();
+    CriteriaQuery<Tuple> criteriaQuery = builder.createTupleQuery();
+    Root<T> root = criteriaQuery.from(type);
+    Path<K> keyPath = root.get(sortKey);
+    Path<Comparable> idPath = root.get(idAttribute.getName());
+    boolean sortedById = idAttribute.getName().equals(sortKey.getName());
+
+    List<Predicate> predicates = new ArrayList<>();
+    predicates.add(builder.isNotNull(keyPath));
+    if (null != lastSeen) {
+      Predicate behindKey = builder.greaterThan(keyPath, lastSeen.getLastKey());
+      if (!sortedById) {
+        Predicate behindId = builder.and(builder.equal(keyPath, lastSeen.getLastKey()),
+                builder.greaterThan(idPath, (Comparable) lastSeen.getLastId()));
+        behindKey = builder.or(behindKey, behindId);
+      }
+      predicates.add(behindKey);
+    }
+
+    criteriaQuery.multiselect(root, keyPath, idPath);
+    criteriaQuery.where(predicates.toArray(new Predicate[0]));
+    if (sortedById) {
+      criteriaQuery.orderBy(builder.asc(keyPath));
+    } else {
+      criteriaQuery.orderBy(builder.asc(keyPath), builder.asc(idPath));
+    }
+
+    // One additional row is read to know if there is a further page.
+    // With the Oracle12cDialect the limit is rendered as FETCH FIRST n ROWS ONLY.
+    List<Tuple> rows = findByCriteriaQuery(criteriaQuery, effectivePageSize + 1);
+
+    int contentSize = Math.min(rows.size(), effectivePageSize);
+    List<T> content = new ArrayList<>(contentSize);
+    for (int i = 0; i < contentSize; i++) {
+      content.add((T) rows.get(i).get(0));
+    }
+
+    PageToken<K> nextToken = null;
+    if (rows.size() > effectivePageSize) {
+      Tuple last = rows.get(contentSize - 1);
+      nextToken = new PageToken<>((K) last.get(1), last.get(2));
+    }
+
+    return new KeysetPage<>(content, nextToken);
+  }
+
+  /**
+   * Returns the id attribute of the generic type.
+   *
+   * @return The id attribute
+   */
+  protected SingularAttribute<? super T, ?> getIdAttribute() {
+
+    EntityType<T> entityType = getEntityManager().getMetamodel().entity(type);
+
+    return entityType.getSingularAttributes().stream()
+            .filter(SingularAttribute::isId)
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No single id attribute found for " + type.getName()));
+  }
+
+  @Override
+  public Stream<T> streamAll() {
+    return streamAll(getStreamFetchSize());
+  }
+
+  @Override
+  public Stream<T> streamAll(int fetchSize) {
+
+    TypedQuery<T> typedQuery = createTemplateQuery(TEMPLATE_ALL, builder -> {
+      CriteriaQuery<T> criteriaQuery = builder.createQuery(type);
+      criteriaQuery.from(type);
+      return criteriaQuery;
+    });
+
+    return streamByTypedQuery(typedQuery, fetchSize);
+  }
+
+  /**
+   * Returns the fetch size used by the stream methods without fetch size parameter.
+   * Can be overridden by DAOs which need another fetch size.
+   *
+   * @return The default fetch size for streaming queries
+   */
+  protected int getStreamFetchSize() {
+    return STREAM_FETCH_SIZE_DEFAULT;
+  }
+
+  /**
+   * Executes a TypedQuery and streams the results using a forward only server side cursor.
+   * Entities are loaded read-only and detached after they were read, so the persistence context does not grow.
+   * The stream must be closed after usage, which closes the cursor.
+   *
+   * @param typedQuery Query to be executed
+   * @param fetchSize Number of rows fetched per round trip by the JDBC driver. Only used if greater then zero.
+   * @param <E> Generic Type
+   * @return Stream of results, never null. Must be closed after usage.
+   */
+  protected <E> Stream<E> streamByTypedQuery(TypedQuery<E> typedQuery, int fetchSize) {
+
+    if (fetchSize > 0) {
+      typedQuery.setHint(QueryHints.HINT_FETCH_SIZE, fetchSize);
+    }
+    applyReadMode(typedQuery).setHint(QueryHints.HINT_READONLY, true);
+
+    DaoMetrics daoMetrics = getMetrics();
+    long start = daoMetrics.start();
+    ScrollableResults scrollableResults;
+    try {
+      scrollableResults = typedQuery.unwrap(Query.class).scroll(ScrollMode.FORWARD_ONLY);
+    } catch (RuntimeException e) {
+      daoMetrics.recordFailure(DaoOperation.STREAM, start);
+      throw e;
+    }
+    daoMetrics.record(DaoOperation.STREAM, start, 0);
+    DetachingScrollIterator<E> iterator = new DetachingScrollIterator<>(scrollableResults, getEntityManager());
+
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+            .onClose(() -> {
+              daoMetrics.addRows(DaoOperation.STREAM, iterator.getRowCount());
+              scrollableResults.close();
+            });
+  }
+
+  /**
+   * Executes a CriteriaQuery and streams the results using a forward only server side cursor.
+   * The CriteriaQuery is transformed into a TypedQuery.
+   *
+   * @param criteriaQuery Query to be executed
+   * @param fetchSize Number of rows fetched per round trip by the JDBC driver. Only used if greater then zero.
+   * @param <E> Generic Type
+   * @return Stream of results, never null. Must be closed after usage.
+   * @see #streamByTypedQuery(TypedQuery, int)
+   */
+  protected <E> Stream<E> streamByCriteriaQuery(CriteriaQuery<E> criteriaQuery, int fetchSize) {
+
+    TypedQuery<E> typedQuery = getEntityManager().createQuery(criteriaQuery);
+
+    return streamByTypedQuery(typedQuery, fetchSize);
+  }
+
+  /**
+   * Executes a CriteriaQuery and streams the results using the default fetch size.
+   *
+   * @param criteriaQuery Query to be executed
+   * @param <E> Generic Type
+   * @return Stream of results, never null. Must be closed after usage.
+   * @see #streamByCriteriaQuery(CriteriaQuery, int)
+   */
+  protected <E> Stream<E> streamByCriteriaQuery(CriteriaQuery<E> criteriaQuery) {
+    return streamByCriteriaQuery(criteriaQuery, getStreamFetchSize());
+  }
+
+  /**
+   * Executes a NamedQuery to return a list of results.
+   * The query string is transformed into a TypedQuery, before the parameters are set.
+   *
+   * @param queryString
+   *          Name of the NamedQuery.
+   * @param parameters
+   *          Parameters that should be passed to the query
+   * @return Results, never null
+   * @see #findByTypedQuery(TypedQuery)
+   */
+  protected List<T> findByNamedQuery(String queryString, Map<String, Object> parameters) {
+    TypedQuery<T> typedQuery = getTypedQuery(queryString, parameters);
+
+    return findByTypedQuery(typedQuery);
+  }
+
+  /**
+   * Executes a NamedQuery to return a list of results with a maximum of results, using "setmaxResults".
+   * The query string is transformed into a TypedQuery, before the parameters are set.
+   *
+   * @param queryString
+   *          Name of the NamedQuery.
+   * @param parameters
+   *          Parameters that should be passed to the query
+   * @param maxResults Maximum number of results. Only used if greater then zero.
+   * @return Results, never null
+   * @see #findByTypedQuery(TypedQuery, int)
+   */
+  protected List<T> findByNamedQuery(String queryString, Map<String, Object> parameters, int maxResults) {
+    TypedQuery<T> typedQuery = getTypedQuery(queryString, parameters);
+
+    return findByTypedQuery(typedQuery, maxResults);
+  }
+
+  /**
+   * Executes a NamedQuery and returns the first result of the result list.
+   * The query string is transformed into a TypedQuery, before the parameters are set.
+   *
+   * @param queryString
+   *          Name of the NamedQuery.
+   * @param parameters
+   *          Parameters that should be passed to the query
+   * @return The first element of the result set
+   * @see #findByTypedQueryFirstResult(TypedQuery)
+   */
+  protected Optional<T> findByNamedQueryFirstResult(String queryString, Map<String, Object> parameters) {
+
+    TypedQuery<T> typedQuery = getTypedQuery(queryString, parameters);
+
+    return findByTypedQueryFirstResult(typedQuery);
+  }
+
+  /**
+   * Executes a NamedQuery and returns the first result of the result list, if it contains exactly one result.
    * The query string is transformed into a TypedQuery, before the parameters are set.
    *
    * @param queryString
@@ -500,6 +1915,7 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
 
   /**
    * Creates a TypedQuery by a NamedQuery and sets the parameters to the query.
+   * NamedQueries are translated once when the persistence unit starts, so only the parameters are set here.
    *
    * @param queryString
    *          Name of the NamedQuery.
@@ -517,4 +1933,68 @@ public class GenericDao<T> implements IGenericDao<T>, Serializable {
     return typedQuery;
   }
 
+  /**
+   * Iterator over the rows of a ScrollableResults, which detaches every entity after it was read.
+   *
+   * @param <E> Generic Type
+   */
+  private static final class DetachingScrollIterator<E> implements Iterator<E> {
+
+    private final ScrollableResults scrollableResults;
+
+    private final EntityManager entityManager;
+
+    /** Null until the first row was read, afterwards defines if the rows are entities. */
+    private Boolean entityRows;
+
+    private boolean hasNext;
+
+    private boolean advanced;
+
+    private long rowCount;
+
+    DetachingScrollIterator(ScrollableResults scrollableResults, EntityManager entityManager) {
+      this.scrollableResults = scrollableResults;
+      this.entityManager = entityManager;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (!advanced) {
+        hasNext = scrollableResults.next();
+        advanced = true;
+      }
+      return hasNext;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      advanced = false;
+      rowCount++;
+
+      E row = (E) scrollableResults.get(0);
+      if (null != row) {
+        if (null == entityRows) {
+          entityRows = entityManager.getMetamodel().getEntities().stream()
+                  .anyMatch(entityType -> entityType.getJavaType().isInstance(row));
+        }
+        if (entityRows) {
+          entityManager.detach(row);
+        }
+      }
+      return row;
+    }
+
+    /**
+     * @return Number of rows read so far
+     */
+    long getRowCount() {
+      return rowCount;
+    }
+  }
+
 }
@@ -0,0 +1,63 @@
+package de.test.genericdao.dao.impl;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaQuery;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of CriteriaQuery templates. A template is built once per persistence unit and key and is reused for every
+ * execution, only the parameters are bound per execution.
+ * Templates must not be changed after they were registered, because they are shared between threads.
+ */
+final class QueryTemplateRegistry {
+
+  /**
+   * Templates per persistence unit. The templates reference their CriteriaBuilder and so the persistence unit, which
+   * therefore can't be a weak key. The templates of a persistence unit are removed when it is closed (see
+   * {@link #remove(EntityManagerFactory)}), the ones of already closed persistence units when another one is added.
+   */
+  private static final ConcurrentMap<EntityManagerFactory, ConcurrentMap<String, CriteriaQuery<?>>> TEMPLATES =
+          new ConcurrentHashMap<>();
+
+  private QueryTemplateRegistry() {
+    throw new AssertionError("Suppress default constructor for noninstantiability");
+  }
+
+  /**
+   * Returns the template of the key, building it if it does not exist yet.
+   *
+   * @param entityManagerFactory
+   *          The persistence unit the template belongs to
+   * @param key
+   *          Unique key of the template
+   * @param factory
+   *          Factory to build the template
+   * @param <E> Generic Type
+   * @return The template
+   */
+  @SuppressWarnings("unchecked")
+  static <E> CriteriaQuery<E> get(EntityManagerFactory entityManagerFactory, String key,
+      Supplier<CriteriaQuery<E>> factory) {
+
+    ConcurrentMap<String, CriteriaQuery<?>> templates = TEMPLATES.get(entityManagerFactory);
+    if (null == templates) {
+      TEMPLATES.keySet().removeIf(emf -> !emf.isOpen());
+      templates = TEMPLATES.computeIfAbsent(entityManagerFactory, emf -> new ConcurrentHashMap<>());
+    }
+
+    return (CriteriaQuery<E>) templates.computeIfAbsent(key, k -> factory.get());
+  }
+
+  /**
+   * Removes the templates of the persistence unit, e.g. before it is closed.
+   *
+   * @param entityManagerFactory
+   *          The persistence unit
+   */
+  static void remove(EntityManagerFactory entityManagerFactory) {
+    TEMPLATES.remove(entityManagerFactory);
+  }
+
+}
@@ -0,0 +1,298 @@
+package de.test.genericdao.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the DAOs of one entity type: Latency, rows and failures per operation and per query, and the size of the
+ * persistence context after the operations. The metrics are application wide, all DAO instances of a type share them.
+ *
+ * Recording is lock and allocation free (except for the first execution of a query), so the metrics can stay enabled
+ * under load. Usage on the hot path:
+ *
+ * <pre>
+ * long start = metrics.start();
+ * ... // operation
+ * metrics.record(DaoOperation.FIND, start, rows);
+ * </pre>
+ */
+public final class DaoMetrics {
+
+  /** Maximum number of queries with own statistics per type, further queries are counted as {@link #OTHER_QUERIES}. */
+  static final int MAX_QUERIES = 500;
+
+  /** Name of the statistics of the queries exceeding {@link #MAX_QUERIES}. */
+  static final String OTHER_QUERIES = "<other queries>";
+
+  /** Start time returned while the metrics are disabled, nothing is recorded for it. */
+  private static final long DISABLED = Long.MIN_VALUE;
+
+  private static final ConcurrentMap<Class<?>, DaoMetrics> METRICS = new ConcurrentHashMap<>();
+
+  private static volatile boolean enabled = true;
+
+  private final Class<?> type;
+
+  private final OperationStats[] operations = new OperationStats[DaoOperation.values().length];
+
+  private final ConcurrentMap<String, OperationStats> queries = new ConcurrentHashMap<>();
+
+  private final Histogram persistenceContextSize = new Histogram();
+
+  private final LongAdder optimisticLockConflicts = new LongAdder();
+
+  private DaoMetrics(Class<?> type) {
+    this.type = type;
+    for (int i = 0; i < operations.length; i++) {
+      operations[i] = new OperationStats();
+    }
+  }
+
+  /**
+   * Returns the metrics of the entity type, creating them on first access.
+   *
+   * @param type
+   *          The entity type
+   * @return Metrics of the type
+   */
+  public static DaoMetrics of(Class<?> type) {
+    DaoMetrics metrics = METRICS.get(type);
+    return (null != metrics) ? metrics : METRICS.computeIfAbsent(type, DaoMetrics::new);
+  }
+
+  /**
+   * @return Metrics of all entity types which were accessed by a DAO
+   */
+  public static Collection<DaoMetrics> all() {
+    return Collections.unmodifiableCollection(METRICS.values());
+  }
+
+  /**
+   * @return true if the metrics are recorded
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enables or disables the recording of all metrics. Recorded values are kept.
+   *
+   * @param enable
+   *          true to record the metrics
+   */
+  public static void setEnabled(boolean enable) {
+    enabled = enable;
+  }
+
+  /**
+   * Starts the measurement of an operation.
+   *
+   * @return Start time to be passed to the record methods
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : DISABLED;
+  }
+
+  /**
+   * @param start
+   *          Start time returned by {@link #start()}
+   * @return true if the measurement was started with enabled metrics, so the values should be recorded
+   */
+  public boolean isRecording(long start) {
+    return DISABLED != start;
+  }
+
+  /**
+   * Records a successful operation.
+   *
+   * @param operation
+   *          The operation
+   * @param start
+   *          Start time returned by {@link #start()}
+   * @param rows
+   *          Number of read or written rows
+   */
+  public void record(DaoOperation operation, long start, long rows) {
+    if (isRecording(start)) {
+      operations[operation.ordinal()].record(System.nanoTime() - start, rows);
+    }
+  }
+
+  /**
+   * Records a failed operation.
+   *
+   * @param operation
+   *          The operation
+   * @param start
+   *          Start time returned by {@link #start()}
+   */
+  public void recordFailure(DaoOperation operation, long start) {
+    if (isRecording(start)) {
+      operations[operation.ordinal()].recordFailure(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records a successful query, both as operation {@link DaoOperation#QUERY} and per query.
+   *
+   * @param query
+   *          Query string (JPQL), identifies the query
+   * @param start
+   *          Start time returned by {@link #start()}
+   * @param rows
+   *          Number of read rows
+   */
+  public void recordQuery(String query, long start, long rows) {
+    if (isRecording(start)) {
+      long elapsedNanos = System.nanoTime() - start;
+      operations[DaoOperation.QUERY.ordinal()].record(elapsedNanos, rows);
+      getQueryStats(query).record(elapsedNanos, rows);
+    }
+  }
+
+  /**
+   * Records a failed query, both as operation {@link DaoOperation#QUERY} and per query.
+   *
+   * @param query
+   *          Query string (JPQL), identifies the query
+   * @param start
+   *          Start time returned by {@link #start()}
+   */
+  public void recordQueryFailure(String query, long start) {
+    if (isRecording(start)) {
+      long elapsedNanos = System.nanoTime() - start;
+      operations[DaoOperation.QUERY.ordinal()].recordFailure(elapsedNanos);
+      getQueryStats(query).recordFailure(elapsedNanos);
+    }
+  }
+
+  /**
+   * Adds rows to an operation which were read after the operation was recorded, e.g. by a stream.
+   *
+   * @param operation
+   *          The operation
+   * @param rows
+   *          Number of read rows
+   */
+  public void addRows(DaoOperation operation, long rows) {
+    if (enabled) {
+      operations[operation.ordinal()].addRows(rows);
+    }
+  }
+
+  /**
+   * Records the number of entities managed by the persistence context after an operation.
+   *
+   * @param size
+   *          Number of managed entities
+   */
+  public void recordPersistenceContextSize(int size) {
+    if (enabled) {
+      persistenceContextSize.record(size);
+    }
+  }
+
+  /**
+   * Records a conflict of an optimistic update: The object was changed by another transaction since it was read.
+   */
+  public void recordOptimisticLockConflict() {
+    if (enabled) {
+      optimisticLockConflicts.increment();
+    }
+  }
+
+  private OperationStats getQueryStats(String query) {
+    String key = (null != query) ? query : OTHER_QUERIES;
+
+    OperationStats stats = queries.get(key);
+    if (null == stats) {
+      stats = (queries.size() < MAX_QUERIES)
+              ? queries.computeIfAbsent(key, k -> new OperationStats())
+              : queries.computeIfAbsent(OTHER_QUERIES, k -> new OperationStats());
+    }
+    return stats;
+  }
+
+  /**
+   * @return The entity type
+   */
+  public Class<?> getType() {
+    return type;
+  }
+
+  /**
+   * @param operation
+   *          The operation
+   * @return Statistics of the operation
+   */
+  public OperationStats getOperation(DaoOperation operation) {
+    return operations[operation.ordinal()];
+  }
+
+  /**
+   * @return Statistics per query string
+   */
+  public Map<String, OperationStats> getQueries() {
+    return Collections.unmodifiableMap(queries);
+  }
+
+  /**
+   * @return Number of entities managed by the persistence context after the operations
+   */
+  public Histogram getPersistenceContextSize() {
+    return persistenceContextSize;
+  }
+
+  /**
+   * @return Number of conflicts of optimistic updates, including the ones which succeeded after a retry
+   */
+  public long getOptimisticLockConflicts() {
+    return optimisticLockConflicts.sum();
+  }
+
+  /**
+   * Creates snapshots of all executed operations, named by the simple name of the type and the operation.
+   *
+   * @return Snapshots of the operations
+   */
+  public List<OperationSnapshot> snapshotOperations() {
+    List<OperationSnapshot> snapshots = new ArrayList<>();
+    for (DaoOperation operation : DaoOperation.values()) {
+      OperationStats stats = getOperation(operation);
+      if (stats.getLatency().getCount() > 0) {
+        snapshots.add(stats.snapshot(type.getSimpleName() + "." + operation.name()));
+      }
+    }
+    return snapshots;
+  }
+
+  /**
+   * Creates snapshots of all executed queries, named by the query string.
+   *
+   * @return Snapshots of the queries
+   */
+  public List<OperationSnapshot> snapshotQueries() {
+    List<OperationSnapshot> snapshots = new ArrayList<>(queries.size());
+    queries.forEach((query, stats) -> snapshots.add(stats.snapshot(query)));
+    return snapshots;
+  }
+
+  /**
+   * Removes all recorded values. The statistics of the queries are removed completely.
+   */
+  public void reset() {
+    for (OperationStats operation : operations) {
+      operation.reset();
+    }
+    queries.clear();
+    persistenceContextSize.reset();
+    optimisticLockConflicts.reset();
+  }
+
+}
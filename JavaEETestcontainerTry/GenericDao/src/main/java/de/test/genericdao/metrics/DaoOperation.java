@@ -0,0 +1,47 @@
+package de.test.genericdao.metrics;
+
+/**
+ * Operations of the GenericDao which are measured by the {@link DaoMetrics}.
+ */
+public enum DaoOperation {
+
+  /** Find by id. */
+  FIND,
+
+  /** Find of several objects by their ids (persistence context and IN lists). */
+  FIND_BY_IDS,
+
+  /** Query returning a list or a single result. */
+  QUERY,
+
+  /** Opening a streaming query. The rows are counted when the stream is closed. */
+  STREAM,
+
+  /** Create of one or more objects. */
+  CREATE,
+
+  /** Update of one or more objects. */
+  UPDATE,
+
+  /** Update with optimistic locking, including the retries after conflicts. */
+  OPTIMISTIC_UPDATE,
+
+  /** Delete of one object. */
+  DELETE,
+
+  /** Create in bulk mode. */
+  BULK_CREATE,
+
+  /** Update in bulk mode. */
+  BULK_UPDATE,
+
+  /** Set based DELETE statements of several objects by their ids (IN lists). */
+  DELETE_BY_IDS,
+
+  /** Set based DELETE statement. */
+  DELETE_WHERE,
+
+  /** Set based UPDATE statement. */
+  UPDATE_WHERE
+
+}
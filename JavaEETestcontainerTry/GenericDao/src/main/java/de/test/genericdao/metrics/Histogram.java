@@ -0,0 +1,128 @@
+package de.test.genericdao.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative values (e.g. nanoseconds) with one bucket per power of two. Recording a value is lock and
+ * allocation free, so it can be used on hot paths by many threads. Percentiles are approximated by the upper bound of
+ * the bucket, so they are at most twice the real value.
+ */
+public final class Histogram {
+
+  /** Bucket 0 contains the value 0, bucket n the values from 2^(n-1) to 2^n - 1. */
+  static final int BUCKETS = Long.SIZE;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+  private final LongAdder sum = new LongAdder();
+
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  /**
+   * Creates an empty histogram.
+   */
+  public Histogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a value. Negative values are recorded as zero.
+   *
+   * @param value
+   *          The value to be recorded
+   */
+  public void record(long value) {
+    long effectiveValue = Math.max(0L, value);
+
+    buckets[bucketOf(effectiveValue)].increment();
+    sum.add(effectiveValue);
+    max.accumulate(effectiveValue);
+  }
+
+  /**
+   * @return Number of recorded values
+   */
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * @return Sum of the recorded values
+   */
+  public long getSum() {
+    return sum.sum();
+  }
+
+  /**
+   * @return Mean of the recorded values, zero if nothing was recorded
+   */
+  public double getMean() {
+    long count = getCount();
+    return (count > 0) ? (double) getSum() / count : 0d;
+  }
+
+  /**
+   * @return Largest recorded value, zero if nothing was recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the approximated percentile: The upper bound of the bucket containing the percentile, but not more than
+   * the largest recorded value.
+   *
+   * @param percentile
+   *          Percentile between 0 and 1, e.g. 0.99
+   * @return Approximated percentile, zero if nothing was recorded
+   */
+  public long getPercentile(double percentile) {
+
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+      count += counts[i];
+    }
+    if (0 == count) {
+      return 0L;
+    }
+
+    long rank = Math.max(1L, (long) Math.ceil(Math.min(1d, Math.max(0d, percentile)) * count));
+    long cumulated = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulated += counts[i];
+      if (cumulated >= rank) {
+        return Math.min(upperBoundOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Removes all recorded values. Values recorded concurrently may be lost or partially kept.
+   */
+  public void reset() {
+    for (LongAdder bucket : buckets) {
+      bucket.reset();
+    }
+    sum.reset();
+    max.reset();
+  }
+
+  static int bucketOf(long value) {
+    return Long.SIZE - Long.numberOfLeadingZeros(value);
+  }
+
+  static long upperBoundOf(int bucket) {
+    return (bucket >= BUCKETS - 1) ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+}
@@ -0,0 +1,110 @@
+package de.test.genericdao.metrics;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * Values of an operation at one point in time. Exposed via JMX (as composite data of an MXBean).
+ */
+public final class OperationSnapshot implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String name;
+
+  private final long count;
+
+  private final long failures;
+
+  private final long rows;
+
+  private final double meanMillis;
+
+  private final double p50Millis;
+
+  private final double p95Millis;
+
+  private final double p99Millis;
+
+  private final double maxMillis;
+
+  /**
+   * Creates a new snapshot.
+   *
+   * @param name
+   *          Name of the operation
+   * @param count
+   *          Number of executions
+   * @param failures
+   *          Number of failed executions
+   * @param rows
+   *          Number of read or written rows
+   * @param meanMillis
+   *          Mean duration in milliseconds
+   * @param p50Millis
+   *          Median duration in milliseconds (approximated)
+   * @param p95Millis
+   *          95th percentile of the duration in milliseconds (approximated)
+   * @param p99Millis
+   *          99th percentile of the duration in milliseconds (approximated)
+   * @param maxMillis
+   *          Longest duration in milliseconds
+   */
+  @ConstructorProperties({"name", "count", "failures", "rows", "meanMillis", "p50Millis", "p95Millis", "p99Millis",
+      "maxMillis"})
+  public OperationSnapshot(String name, long count, long failures, long rows, double meanMillis, double p50Millis,
+      double p95Millis, double p99Millis, double maxMillis) {
+    this.name = name;
+    this.count = count;
+    this.failures = failures;
+    this.rows = rows;
+    this.meanMillis = meanMillis;
+    this.p50Millis = p50Millis;
+    this.p95Millis = p95Millis;
+    this.p99Millis = p99Millis;
+    this.maxMillis = maxMillis;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getFailures() {
+    return failures;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public double getMeanMillis() {
+    return meanMillis;
+  }
+
+  public double getP50Millis() {
+    return p50Millis;
+  }
+
+  public double getP95Millis() {
+    return p95Millis;
+  }
+
+  public double getP99Millis() {
+    return p99Millis;
+  }
+
+  public double getMaxMillis() {
+    return maxMillis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[count=%d, failures=%d, rows=%d, mean=%.3f ms, p50=%.3f ms, p95=%.3f ms, p99=%.3f ms, "
+            + "max=%.3f ms]", name, count, failures, rows, meanMillis, p50Millis, p95Millis, p99Millis, maxMillis);
+  }
+
+}
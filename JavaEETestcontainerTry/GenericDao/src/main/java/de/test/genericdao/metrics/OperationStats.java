@@ -0,0 +1,99 @@
+package de.test.genericdao.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, number of rows and number of failures of one operation, e.g. a DAO method or a query.
+ * Recording is lock and allocation free.
+ */
+public final class OperationStats {
+
+  private final Histogram latency = new Histogram();
+
+  private final LongAdder rows = new LongAdder();
+
+  private final LongAdder failures = new LongAdder();
+
+  /**
+   * Records a successful execution.
+   *
+   * @param elapsedNanos
+   *          Duration of the execution in nanoseconds
+   * @param rowCount
+   *          Number of read or written rows
+   */
+  public void record(long elapsedNanos, long rowCount) {
+    latency.record(elapsedNanos);
+    rows.add(rowCount);
+  }
+
+  /**
+   * Records a failed execution.
+   *
+   * @param elapsedNanos
+   *          Duration of the execution in nanoseconds
+   */
+  public void recordFailure(long elapsedNanos) {
+    latency.record(elapsedNanos);
+    failures.increment();
+  }
+
+  /**
+   * Adds rows which were read after the execution, e.g. by a stream.
+   *
+   * @param rowCount
+   *          Number of read rows
+   */
+  public void addRows(long rowCount) {
+    rows.add(rowCount);
+  }
+
+  /**
+   * @return Latency of all executions in nanoseconds
+   */
+  public Histogram getLatency() {
+    return latency;
+  }
+
+  /**
+   * @return Number of read or written rows
+   */
+  public long getRows() {
+    return rows.sum();
+  }
+
+  /**
+   * @return Number of failed executions
+   */
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  /**
+   * Creates a snapshot of the current values, latencies are converted to milliseconds.
+   *
+   * @param name
+   *          Name of the operation
+   * @return The snapshot
+   */
+  public OperationSnapshot snapshot(String name) {
+    return new OperationSnapshot(name, latency.getCount(), getFailures(), getRows(), toMillis(latency.getMean()),
+            toMillis(latency.getPercentile(0.5d)), toMillis(latency.getPercentile(0.95d)),
+            toMillis(latency.getPercentile(0.99d)), toMillis(latency.getMax()));
+  }
+
+  /**
+   * Removes all recorded values.
+   */
+  public void reset() {
+    latency.reset();
+    rows.reset();
+    failures.reset();
+  }
+
+  private static double toMillis(double nanos) {
+    return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+}
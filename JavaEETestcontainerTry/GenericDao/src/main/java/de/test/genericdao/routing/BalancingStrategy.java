@@ -0,0 +1,80 @@
+package de.test.genericdao.routing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Strategies of the ReplicaRouter to choose one of the available replicas.
+ */
+public enum BalancingStrategy {
+
+  /** Uses the replicas one after another. */
+  ROUND_ROBIN {
+    @Override
+    Replica choose(List<Replica> candidates, long sequence) {
+      return candidates.get(index(sequence, candidates.size()));
+    }
+  },
+
+  /** Uses the replica with the fewest outstanding transactions. Ties are resolved round robin. */
+  LEAST_OUTSTANDING {
+    @Override
+    Replica choose(List<Replica> candidates, long sequence) {
+      int start = index(sequence, candidates.size());
+      Replica best = null;
+      for (int i = 0; i < candidates.size(); i++) {
+        Replica candidate = candidates.get((start + i) % candidates.size());
+        if (null == best || candidate.getOutstanding() < best.getOutstanding()) {
+          best = candidate;
+        }
+      }
+      return best;
+    }
+  },
+
+  /**
+   * Chooses a replica randomly, weighted by the inverse of its average latency, so faster replicas get more
+   * transactions. Replicas without measured latency get the weight of the fastest replica.
+   */
+  LATENCY_WEIGHTED {
+    @Override
+    Replica choose(List<Replica> candidates, long sequence) {
+      double fastest = candidates.stream()
+          .mapToDouble(Replica::getLatencyNanos)
+          .filter(latency -> !Double.isNaN(latency))
+          .min()
+          .orElse(1d);
+
+      double[] weights = new double[candidates.size()];
+      double total = 0;
+      for (int i = 0; i < weights.length; i++) {
+        double latency = candidates.get(i).getLatencyNanos();
+        weights[i] = 1d / Math.max(1d, Double.isNaN(latency) ? fastest : latency);
+        total += weights[i];
+      }
+
+      double random = ThreadLocalRandom.current().nextDouble(total);
+      for (int i = 0; i < weights.length; i++) {
+        random -= weights[i];
+        if (random < 0) {
+          return candidates.get(i);
+        }
+      }
+      return candidates.get(candidates.size() - 1);
+    }
+  };
+
+  /**
+   * Chooses one of the candidates.
+   *
+   * @param candidates Available replicas, at least one
+   * @param sequence   Number of the selection, increasing with every selection
+   * @return The chosen replica
+   */
+  abstract Replica choose(List<Replica> candidates, long sequence);
+
+  private static int index(long sequence, int size) {
+    return (int) Math.floorMod(sequence, (long) size);
+  }
+
+}
@@ -0,0 +1,132 @@
+package de.test.genericdao.routing;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A reading datasource (persistence unit) used by the ReplicaRouter, together with the statistics used for the load
+ * balancing and the health state.
+ * <p>
+ * A replica is ejected for a cooldown period after a number of consecutive connection failures. After the cooldown it
+ * is used again, the first failure ejects it again, the first success resets the failure count.
+ */
+public final class Replica {
+
+  /** Weight of the latest measurement in the moving average of the latency. */
+  private static final double LATENCY_SMOOTHING = 0.2;
+
+  private final String name;
+
+  private final EntityManager entityManager;
+
+  private final AtomicInteger outstanding = new AtomicInteger();
+
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+  private final AtomicLong requestCount = new AtomicLong();
+
+  private final AtomicLong failureCount = new AtomicLong();
+
+  private volatile double latencyNanos = Double.NaN;
+
+  private volatile long ejectedUntilNanos;
+
+  private volatile boolean ejected;
+
+  /**
+   * Creates a new replica.
+   *
+   * @param name          Name of the replica, e.g. the name of the persistence unit
+   * @param entityManager EntityManager of the replica
+   */
+  public Replica(String name, EntityManager entityManager) {
+    this.name = name;
+    this.entityManager = entityManager;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public EntityManager getEntityManager() {
+    return entityManager;
+  }
+
+  /**
+   * @return Number of transactions (or calls without transaction) currently using the replica
+   */
+  public int getOutstanding() {
+    return outstanding.get();
+  }
+
+  /**
+   * @return Moving average of the database time per transaction in nanoseconds, NaN if nothing was measured yet
+   */
+  public double getLatencyNanos() {
+    return latencyNanos;
+  }
+
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  /**
+   * @return true if the replica is ejected and the cooldown is not over yet
+   */
+  public boolean isEjected() {
+    return !isAvailable(System.nanoTime());
+  }
+
+  boolean isAvailable(long nowNanos) {
+    return !ejected || nowNanos - ejectedUntilNanos >= 0;
+  }
+
+  void started() {
+    outstanding.incrementAndGet();
+    requestCount.incrementAndGet();
+  }
+
+  /**
+   * Records the end of a usage of the replica.
+   *
+   * @param elapsedNanos     Database time of the usage
+   * @param failed           true if a connection failure occurred
+   * @param failureThreshold Number of consecutive failures ejecting the replica
+   * @param cooldownNanos    Duration of the ejection
+   */
+  void finished(long elapsedNanos, boolean failed, int failureThreshold, long cooldownNanos) {
+    outstanding.decrementAndGet();
+
+    if (failed) {
+      failureCount.incrementAndGet();
+      if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+        ejectedUntilNanos = System.nanoTime() + cooldownNanos;
+        ejected = true;
+      }
+      return;
+    }
+
+    consecutiveFailures.set(0);
+    ejected = false;
+    updateLatency(elapsedNanos);
+  }
+
+  private synchronized void updateLatency(long elapsedNanos) {
+    double current = latencyNanos;
+    latencyNanos = Double.isNaN(current)
+        ? elapsedNanos
+        : current + LATENCY_SMOOTHING * (elapsedNanos - current);
+  }
+
+  @Override
+  public String toString() {
+    return "Replica[name=" + name + ", outstanding=" + outstanding.get() + ", latencyNanos=" + latencyNanos
+        + ", ejected=" + isEjected() + "]";
+  }
+
+}
@@ -0,0 +1,379 @@
+package de.test.genericdao.routing;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads reads over several reading datasources (replicas), behind one EntityManager which can be injected into the
+ * DAOs instead of the EntityManager of a single persistence unit.
+ * <p>
+ * Every call of the EntityManager (and of the queries created by it) is delegated to the replica of the current
+ * transaction. The replica is chosen by the balancing strategy when the transaction uses the EntityManager the first
+ * time and is kept until the end of the transaction, so all reads of a transaction see the same replica. Without
+ * transaction a replica is chosen per call.
+ * <p>
+ * Replicas are ejected after consecutive connection failures (see {@link Replica}). If no replica is available, the
+ * primary EntityManager is used. With read-your-writes, a transaction which wrote something (see
+ * {@link #markWritten()}) reads from the primary, so it sees its own changes even if the replicas lag behind.
+ */
+public final class ReplicaRouter {
+
+  /** Number of consecutive connection failures ejecting a replica. */
+  public static final int FAILURE_THRESHOLD_DEFAULT = 3;
+
+  /** Duration a replica is ejected, in milliseconds. */
+  public static final long COOLDOWN_MILLIS_DEFAULT = 30_000;
+
+  /** Methods of queries hitting the database. */
+  private static final Set<String> QUERY_EXECUTIONS = new HashSet<>(Arrays.asList("getResultList", "getSingleResult",
+      "executeUpdate", "execute", "getResultStream"));
+
+  private final List<Replica> replicas;
+
+  private final EntityManager primary;
+
+  private final BalancingStrategy strategy;
+
+  private final TransactionSynchronizationRegistry registry;
+
+  private final boolean readYourWrites;
+
+  private final int failureThreshold;
+
+  private final long cooldownNanos;
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  // Keys of the transaction resources, unique per router
+  private final Object selectionKey = new Object();
+
+  private final Object writtenKey = new Object();
+
+  private final EntityManager entityManager;
+
+  /**
+   * Creates a new router with the default health settings.
+   *
+   * @param replicas       Reading replicas, at least one
+   * @param primary        EntityManager used if no replica is available or for read-your-writes
+   * @param strategy       Strategy to choose a replica
+   * @param readYourWrites true if transactions which wrote something read from the primary
+   * @param registry       Registry of the current transaction
+   */
+  public ReplicaRouter(List<Replica> replicas, EntityManager primary, BalancingStrategy strategy,
+      boolean readYourWrites, TransactionSynchronizationRegistry registry) {
+    this(replicas, primary, strategy, readYourWrites, registry, FAILURE_THRESHOLD_DEFAULT, COOLDOWN_MILLIS_DEFAULT,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates a new router.
+   *
+   * @param replicas         Reading replicas, at least one
+   * @param primary          EntityManager used if no replica is available or for read-your-writes
+   * @param strategy         Strategy to choose a replica
+   * @param readYourWrites   true if transactions which wrote something read from the primary
+   * @param registry         Registry of the current transaction
+   * @param failureThreshold Number of consecutive connection failures ejecting a replica
+   * @param cooldown         Duration a replica is ejected
+   * @param unit             Unit of the cooldown
+   */
+  public ReplicaRouter(List<Replica> replicas, EntityManager primary, BalancingStrategy strategy,
+      boolean readYourWrites, TransactionSynchronizationRegistry registry, int failureThreshold, long cooldown,
+      TimeUnit unit) {
+
+    if (null == replicas || replicas.isEmpty()) {
+      throw new IllegalArgumentException("At least one replica is needed");
+    }
+    this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+    this.primary = primary;
+    this.strategy = strategy;
+    this.readYourWrites = readYourWrites;
+    this.registry = registry;
+    this.failureThreshold = Math.max(1, failureThreshold);
+    this.cooldownNanos = unit.toNanos(cooldown);
+    this.entityManager = (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+        new Class<?>[] {EntityManager.class}, new RoutingHandler());
+  }
+
+  /**
+   * @return The routing EntityManager, to be produced for the DAOs
+   */
+  public EntityManager getEntityManager() {
+    return entityManager;
+  }
+
+  /**
+   * @return The replicas with their statistics
+   */
+  public List<Replica> getReplicas() {
+    return replicas;
+  }
+
+  /**
+   * Marks the current transaction as writing. With read-your-writes, further reads of the transaction use the primary.
+   * Does nothing without transaction.
+   */
+  public void markWritten() {
+    if (isTransactionActive()) {
+      registry.putResource(writtenKey, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Returns the EntityManagers behind the given EntityManager: the ones of all replicas for a routing EntityManager,
+   * otherwise the given EntityManager itself. Needed to reach all persistence contexts and caches, e.g. for evictions.
+   *
+   * @param entityManager EntityManager, possibly a routing one
+   * @return EntityManagers behind the given one, never empty
+   */
+  public static List<EntityManager> resolve(EntityManager entityManager) {
+
+    if (Proxy.isProxyClass(entityManager.getClass())) {
+      InvocationHandler handler = Proxy.getInvocationHandler(entityManager);
+      if (handler instanceof RoutingHandler) {
+        return ((RoutingHandler) handler).getRouter().replicas.stream()
+            .map(Replica::getEntityManager)
+            .collect(Collectors.toList());
+      }
+    }
+    return Collections.singletonList(entityManager);
+  }
+
+  private boolean isTransactionActive() {
+    int status = registry.getTransactionStatus();
+    return Status.STATUS_ACTIVE == status || Status.STATUS_MARKED_ROLLBACK == status;
+  }
+
+  /**
+   * Returns the usage of the current transaction, chooses a replica if the transaction has none yet.
+   *
+   * @return Usage of the transaction, NULL without transaction
+   */
+  private Usage currentUsage() {
+
+    if (!isTransactionActive()) {
+      return null;
+    }
+
+    Usage usage = (Usage) registry.getResource(selectionKey);
+    if (null != usage && !(readYourWrites && null != usage.replica && isWritten())) {
+      return usage;
+    }
+
+    Usage previous = usage;
+    usage = (readYourWrites && isWritten()) ? new Usage(null, primary) : choose();
+    registry.putResource(selectionKey, usage);
+
+    Usage current = usage;
+    registry.registerInterposedSynchronization(new Synchronization() {
+      @Override
+      public void beforeCompletion() {
+        // Nothing to do
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        finish(current);
+      }
+    });
+    if (null != previous) {
+      finish(previous);
+    }
+    return usage;
+  }
+
+  private boolean isWritten() {
+    return null != registry.getResource(writtenKey);
+  }
+
+  /**
+   * Chooses one of the available replicas, the primary if there is none.
+   */
+  private Usage choose() {
+
+    long now = System.nanoTime();
+    List<Replica> available = new ArrayList<>(replicas.size());
+    for (Replica replica : replicas) {
+      if (replica.isAvailable(now)) {
+        available.add(replica);
+      }
+    }
+
+    if (available.isEmpty()) {
+      return new Usage(null, primary);
+    }
+
+    Replica replica = strategy.choose(available, sequence.getAndIncrement());
+    replica.started();
+    return new Usage(replica, replica.getEntityManager());
+  }
+
+  private void finish(Usage usage) {
+    if (null != usage.replica && usage.finished()) {
+      usage.replica.finished(usage.elapsedNanos.get(), usage.failed, failureThreshold, cooldownNanos);
+    }
+  }
+
+  /**
+   * Calls the method on the EntityManager of the usage and records the database time and connection failures.
+   * Queries returned by the EntityManager are wrapped as well, because they are executed later.
+   */
+  private Object invoke(Usage usage, Object target, Object proxy, Method method, Object[] args) throws Throwable {
+
+    long start = System.nanoTime();
+    try {
+      Object result = method.invoke(target, args);
+
+      if (result == target) {
+        return proxy;
+      }
+      Class<?> returnType = method.getReturnType();
+      if (null != result && returnType.isInterface() && Query.class.isAssignableFrom(returnType)) {
+        return Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[] {returnType},
+            new QueryHandler(usage, result));
+      }
+      return result;
+    } catch (InvocationTargetException e) {
+      if (isConnectionFailure(e.getCause())) {
+        usage.failed = true;
+      }
+      throw e.getCause();
+    } finally {
+      usage.elapsedNanos.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  private static boolean isConnectionFailure(Throwable throwable) {
+    for (Throwable cause = throwable; null != cause; cause = cause.getCause()) {
+      if (cause instanceof SQLTransientConnectionException || cause instanceof SQLNonTransientConnectionException
+          || cause instanceof SQLRecoverableException) {
+        return true;
+      }
+      if (cause instanceof SQLException && null != ((SQLException) cause).getSQLState()
+          && ((SQLException) cause).getSQLState().startsWith("08")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Usage of a replica (or the primary) by one transaction or by one call without transaction.
+   */
+  private static final class Usage {
+
+    private final Replica replica;
+
+    private final EntityManager entityManager;
+
+    private final AtomicLong elapsedNanos = new AtomicLong();
+
+    private volatile boolean failed;
+
+    private boolean done;
+
+    private Usage(Replica replica, EntityManager entityManager) {
+      this.replica = replica;
+      this.entityManager = entityManager;
+    }
+
+    /**
+     * @return true the first time it is called
+     */
+    private synchronized boolean finished() {
+      boolean first = !done;
+      done = true;
+      return first;
+    }
+
+    private synchronized boolean isDone() {
+      return done;
+    }
+  }
+
+  private final class RoutingHandler implements InvocationHandler {
+
+    private ReplicaRouter getRouter() {
+      return ReplicaRouter.this;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "ReplicaRouter" + replicas;
+        default:
+          break;
+      }
+
+      Usage usage = currentUsage();
+      if (null != usage) {
+        return ReplicaRouter.this.invoke(usage, usage.entityManager, proxy, method, args);
+      }
+
+      // Without transaction every call chooses its replica
+      Usage call = choose();
+      try {
+        return ReplicaRouter.this.invoke(call, call.entityManager, proxy, method, args);
+      } finally {
+        finish(call);
+      }
+    }
+  }
+
+  private final class QueryHandler implements InvocationHandler {
+
+    private final Usage usage;
+
+    private final Object query;
+
+    private QueryHandler(Usage usage, Object query) {
+      this.usage = usage;
+      this.query = query;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+      if (!usage.isDone() || null == usage.replica || !QUERY_EXECUTIONS.contains(method.getName())) {
+        return ReplicaRouter.this.invoke(usage, query, proxy, method, args);
+      }
+
+      // Query created without transaction, every execution is recorded as a usage of its own
+      Usage execution = new Usage(usage.replica, usage.entityManager);
+      usage.replica.started();
+      try {
+        return ReplicaRouter.this.invoke(execution, query, proxy, method, args);
+      } finally {
+        finish(execution);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+package de.test.genericdao.slowquery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the execution plan of a statement on Oracle with EXPLAIN PLAN and DBMS_XPLAN.DISPLAY. The bind parameters are
+ * passed as unbound bind variables, so the plan is the one chosen without bind peeking.
+ * Requires a PLAN_TABLE, which is available as public synonym on Oracle by default.
+ */
+public final class ExplainPlan {
+
+  private static final String STATEMENT_ID_PREFIX = "GENERICDAO_";
+
+  private static final String SQL_DISPLAY =
+          "SELECT plan_table_output FROM TABLE(DBMS_XPLAN.DISPLAY(NULL, ?, 'TYPICAL'))";
+
+  private static final String SQL_CLEANUP = "DELETE FROM plan_table WHERE statement_id = ?";
+
+  private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+
+  private static final AtomicLong STATEMENT_IDS = new AtomicLong();
+
+  private ExplainPlan() {
+    throw new AssertionError("Suppress default constructor for noninstantiability");
+  }
+
+  /**
+   * Explains the statement using the given connection. The rows of the plan table are removed afterwards.
+   *
+   * @param connection
+   *          Connection to an Oracle database
+   * @param sql
+   *          Statement with JDBC placeholders (?)
+   * @return Formatted execution plan
+   * @throws SQLException
+   *           If the statement can't be explained
+   */
+  public static String explain(Connection connection, String sql) throws SQLException {
+
+    String statementId = STATEMENT_ID_PREFIX + STATEMENT_IDS.incrementAndGet();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + toBindVariables(sql));
+    }
+
+    StringBuilder plan = new StringBuilder();
+    try (PreparedStatement display = connection.prepareStatement(SQL_DISPLAY)) {
+      display.setString(1, statementId);
+      try (ResultSet resultSet = display.executeQuery()) {
+        while (resultSet.next()) {
+          plan.append(resultSet.getString(1)).append('\n');
+        }
+      }
+    }
+
+    try (PreparedStatement cleanup = connection.prepareStatement(SQL_CLEANUP)) {
+      cleanup.setString(1, statementId);
+      cleanup.executeUpdate();
+    }
+
+    return plan.toString();
+  }
+
+  /**
+   * Removes the comments (see hibernate.use_sql_comments) and replaces the JDBC placeholders outside of string literals
+   * by named bind variables (:1, :2, ...), because EXPLAIN PLAN is executed without binding values.
+   *
+   * @param sql
+   *          Statement with JDBC placeholders
+   * @return Statement with bind variables
+   */
+  static String toBindVariables(String sql) {
+
+    String statement = COMMENT.matcher(sql).replaceAll(" ").trim();
+    StringBuilder result = new StringBuilder(statement.length() + 16);
+    boolean inLiteral = false;
+    int bindVariable = 0;
+    for (int i = 0; i < statement.length(); i++) {
+      char c = statement.charAt(i);
+      if ('\'' == c) {
+        inLiteral = !inLiteral;
+      }
+      if ('?' == c && !inLiteral) {
+        result.append(':').append(++bindVariable);
+      } else {
+        result.append(c);
+      }
+    }
+    return result.toString();
+  }
+
+}
@@ -0,0 +1,330 @@
+package de.test.genericdao.slowquery;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Log of the DAO queries of one persistence unit exceeding a configurable threshold. Every slow execution is logged
+ * (warning) with its SQL, bind parameters, row count and duration and aggregated by its normalised SQL statement, so
+ * the statements needing an index or a rewrite can be found. Optionally the execution plan of every slow statement is
+ * captured once (Oracle only, see {@link ExplainPlan}).
+ *
+ * Configured by the properties of the persistence unit:
+ * <ul>
+ * <li>{@value #THRESHOLD_PROPERTY}: Threshold in milliseconds, default {@value #THRESHOLD_MILLIS_DEFAULT}. Negative
+ * values disable the log.</li>
+ * <li>{@value #EXPLAIN_PLAN_PROPERTY}: true to capture the execution plans, default false.</li>
+ * </ul>
+ * The SQL statements are only known if {@link SqlCapture} is configured as statement inspector, otherwise the queries
+ * are aggregated by their JPQL.
+ *
+ * Usage on the hot path (nothing is allocated as long as the query is fast):
+ *
+ * <pre>
+ * long start = slowQueryLog.start();
+ * try {
+ *   ... // query
+ *   if (slowQueryLog.isSlow(start)) {
+ *     slowQueryLog.record(start, query, binds, rows, planner);
+ *   }
+ * } finally {
+ *   slowQueryLog.end(start);
+ * }
+ * </pre>
+ */
+public final class SlowQueryLog {
+
+  /** Property of the persistence unit defining the threshold in milliseconds. */
+  public static final String THRESHOLD_PROPERTY = "de.test.slow_query.threshold_ms";
+
+  /** Property of the persistence unit enabling the capture of execution plans. */
+  public static final String EXPLAIN_PLAN_PROPERTY = "de.test.slow_query.explain_plan";
+
+  /** Threshold used if the persistence unit doesn't define one. */
+  static final long THRESHOLD_MILLIS_DEFAULT = 1000;
+
+  /** Maximum number of statements with own statistics, further statements are counted as {@link #OTHER_STATEMENTS}. */
+  static final int MAX_STATEMENTS = 200;
+
+  /** Name of the statistics of the statements exceeding {@link #MAX_STATEMENTS}. */
+  static final String OTHER_STATEMENTS = "<other statements>";
+
+  /** Start time returned while the log is disabled, nothing is measured for it. */
+  private static final long DISABLED = Long.MIN_VALUE;
+
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+  private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+  private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private static final Logger LOGGER = LogManager.getLogger(SlowQueryLog.class);
+
+  // Weak keys, so the logs of undeployed persistence units can be collected
+  private static final Map<EntityManagerFactory, SlowQueryLog> LOGS = Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final ConcurrentMap<String, Statistics> statements = new ConcurrentHashMap<>();
+
+  private volatile long thresholdNanos;
+
+  private volatile boolean explainPlan;
+
+  /**
+   * Creates a new log.
+   *
+   * @param thresholdMillis
+   *          Threshold in milliseconds, negative values disable the log
+   * @param explainPlan
+   *          true to capture the execution plans of slow statements
+   */
+  SlowQueryLog(long thresholdMillis, boolean explainPlan) {
+    setThresholdMillis(thresholdMillis);
+    this.explainPlan = explainPlan;
+  }
+
+  /**
+   * Returns the log of the persistence unit, creating it from the properties of the unit on first access.
+   *
+   * @param entityManagerFactory
+   *          Factory of the persistence unit
+   * @return Log of the persistence unit
+   */
+  public static SlowQueryLog of(EntityManagerFactory entityManagerFactory) {
+    return LOGS.computeIfAbsent(entityManagerFactory, SlowQueryLog::fromProperties);
+  }
+
+  /**
+   * @return Logs of all persistence units which were accessed by a DAO
+   */
+  public static Collection<SlowQueryLog> all() {
+    synchronized (LOGS) {
+      return new ArrayList<>(LOGS.values());
+    }
+  }
+
+  private static SlowQueryLog fromProperties(EntityManagerFactory entityManagerFactory) {
+    Map<String, Object> properties = entityManagerFactory.getProperties();
+    Object threshold = properties.get(THRESHOLD_PROPERTY);
+    Object explain = properties.get(EXPLAIN_PLAN_PROPERTY);
+    return new SlowQueryLog(null == threshold ? THRESHOLD_MILLIS_DEFAULT : Long.parseLong(threshold.toString().trim()),
+            null != explain && Boolean.parseBoolean(explain.toString().trim()));
+  }
+
+  /**
+   * Starts the measurement of a query and the capture of its SQL statements.
+   *
+   * @return Start time to be passed to the other methods
+   */
+  public long start() {
+    if (thresholdNanos < 0) {
+      return DISABLED;
+    }
+    SqlCapture.begin();
+    return System.nanoTime();
+  }
+
+  /**
+   * @param start
+   *          Value returned by {@link #start()}
+   * @return true if the query took at least as long as the threshold
+   */
+  public boolean isSlow(long start) {
+    return DISABLED != start && System.nanoTime() - start >= thresholdNanos;
+  }
+
+  /**
+   * Ends the measurement of a query. Must be called for every {@link #start()} (finally block).
+   *
+   * @param start
+   *          Value returned by {@link #start()}
+   */
+  public void end(long start) {
+    if (DISABLED != start) {
+      SqlCapture.end();
+    }
+  }
+
+  /**
+   * Records and logs a slow execution. The execution plan is captured when the statement is slow for the first time.
+   *
+   * @param start
+   *          Value returned by {@link #start()}
+   * @param query
+   *          Query (JPQL) or name of the operation
+   * @param binds
+   *          Bind parameters
+   * @param rows
+   *          Number of rows read
+   * @param planner
+   *          Function returning the execution plan of an SQL statement, NULL if plans can't be captured
+   */
+  public void record(long start, String query, String binds, long rows, Function<String, String> planner) {
+
+    long elapsed = System.nanoTime() - start;
+    List<String> sqls = SqlCapture.getStatements();
+    String sql = sqls.isEmpty() ? query : sqls.get(0);
+
+    String key = normalize(sql);
+    Statistics statistics = statements.get(key);
+    if (null == statistics) {
+      statistics = (statements.size() < MAX_STATEMENTS)
+              ? statements.computeIfAbsent(key, Statistics::new)
+              : statements.computeIfAbsent(OTHER_STATEMENTS, Statistics::new);
+    }
+
+    boolean first = statistics.record(elapsed, query, binds, rows);
+    if (first && explainPlan && null != planner && !sqls.isEmpty()) {
+      statistics.plan = explain(planner, sql);
+    }
+
+    LOGGER.warn("Slow query ({} ms, {} rows): {} | binds {} | {} statement(s): {}", toMillis(elapsed), rows, query,
+            binds, SqlCapture.getStatementCount(), String.join("; ", sqls));
+    if (first && null != statistics.plan) {
+      LOGGER.warn("Execution plan of {}:\n{}", key, statistics.plan);
+    }
+  }
+
+  private static String explain(Function<String, String> planner, String sql) {
+    try {
+      return planner.apply(sql);
+    } catch (RuntimeException e) {
+      LOGGER.debug("Execution plan not available for " + sql, e);
+      return "Execution plan not available: " + e.getMessage();
+    }
+  }
+
+  /**
+   * Normalises an SQL statement, so executions differing only in literals or the length of IN lists share their
+   * statistics: Comments are removed, literals are replaced by ?, IN lists by (?...) and whitespace is collapsed.
+   *
+   * @param sql
+   *          The SQL statement
+   * @return Normalised statement
+   */
+  static String normalize(String sql) {
+    String normalized = COMMENT.matcher(sql).replaceAll(" ");
+    normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+    normalized = NUMERIC_LITERAL.matcher(normalized).replaceAll("?");
+    normalized = IN_LIST.matcher(normalized).replaceAll("(?...)");
+    return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+  }
+
+  /**
+   * @return Snapshots of the slow statements, the ones with the highest total duration first
+   */
+  public List<SlowStatement> getStatements() {
+    return statements.values().stream()
+            .map(Statistics::snapshot)
+            .sorted(Comparator.comparingDouble(SlowStatement::getTotalMillis).reversed())
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * @return Threshold in milliseconds, negative if the log is disabled
+   */
+  public long getThresholdMillis() {
+    return (thresholdNanos < 0) ? -1 : TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+  }
+
+  /**
+   * @param thresholdMillis
+   *          Threshold in milliseconds, negative values disable the log
+   */
+  public void setThresholdMillis(long thresholdMillis) {
+    this.thresholdNanos = (thresholdMillis < 0) ? -1 : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+  }
+
+  /**
+   * @return true if the execution plans of slow statements are captured
+   */
+  public boolean isExplainPlan() {
+    return explainPlan;
+  }
+
+  /**
+   * @param explainPlan
+   *          true to capture the execution plans of slow statements
+   */
+  public void setExplainPlan(boolean explainPlan) {
+    this.explainPlan = explainPlan;
+  }
+
+  /**
+   * Removes all recorded statements, including their execution plans.
+   */
+  public void reset() {
+    statements.clear();
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / NANOS_PER_MILLI;
+  }
+
+  /**
+   * Slow executions of one statement. Slow executions are rare, so the statistics are simply synchronized.
+   */
+  private static final class Statistics {
+
+    private final String statement;
+
+    private long count;
+
+    private long totalNanos;
+
+    private long maxNanos;
+
+    private String lastQuery;
+
+    private String lastBinds;
+
+    private long lastRows;
+
+    private long lastNanos;
+
+    private volatile String plan;
+
+    Statistics(String statement) {
+      this.statement = statement;
+    }
+
+    /**
+     * @return true if this is the first slow execution of the statement
+     */
+    synchronized boolean record(long elapsed, String query, String binds, long rows) {
+      totalNanos += elapsed;
+      maxNanos = Math.max(maxNanos, elapsed);
+      lastQuery = query;
+      lastBinds = binds;
+      lastRows = rows;
+      lastNanos = elapsed;
+      return 1 == ++count;
+    }
+
+    synchronized SlowStatement snapshot() {
+      return new SlowStatement(statement, count, toMillis(totalNanos), toMillis(maxNanos), lastQuery, lastBinds,
+              lastRows, toMillis(lastNanos), plan);
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+package de.test.genericdao.slowquery;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * Aggregated slow executions of one normalised SQL statement at one point in time, with the values of the last slow
+ * execution. Exposed via JMX (as composite data of an MXBean).
+ */
+public final class SlowStatement implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String statement;
+
+  private final long count;
+
+  private final double totalMillis;
+
+  private final double maxMillis;
+
+  private final String lastQuery;
+
+  private final String lastBinds;
+
+  private final long lastRows;
+
+  private final double lastMillis;
+
+  private final String plan;
+
+  /**
+   * Creates a new snapshot.
+   *
+   * @param statement
+   *          Normalised SQL statement (literals and IN lists replaced), identifies the statement
+   * @param count
+   *          Number of slow executions
+   * @param totalMillis
+   *          Total duration of the slow executions in milliseconds
+   * @param maxMillis
+   *          Longest duration in milliseconds
+   * @param lastQuery
+   *          Query (JPQL) or operation of the last slow execution
+   * @param lastBinds
+   *          Bind parameters of the last slow execution
+   * @param lastRows
+   *          Number of rows of the last slow execution
+   * @param lastMillis
+   *          Duration of the last slow execution in milliseconds
+   * @param plan
+   *          Execution plan, NULL if it was not captured
+   */
+  @ConstructorProperties({"statement", "count", "totalMillis", "maxMillis", "lastQuery", "lastBinds", "lastRows",
+      "lastMillis", "plan"})
+  public SlowStatement(String statement, long count, double totalMillis, double maxMillis, String lastQuery,
+      String lastBinds, long lastRows, double lastMillis, String plan) {
+    this.statement = statement;
+    this.count = count;
+    this.totalMillis = totalMillis;
+    this.maxMillis = maxMillis;
+    this.lastQuery = lastQuery;
+    this.lastBinds = lastBinds;
+    this.lastRows = lastRows;
+    this.lastMillis = lastMillis;
+    this.plan = plan;
+  }
+
+  public String getStatement() {
+    return statement;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public double getTotalMillis() {
+    return totalMillis;
+  }
+
+  public double getMaxMillis() {
+    return maxMillis;
+  }
+
+  public String getLastQuery() {
+    return lastQuery;
+  }
+
+  public String getLastBinds() {
+    return lastBinds;
+  }
+
+  public long getLastRows() {
+    return lastRows;
+  }
+
+  public double getLastMillis() {
+    return lastMillis;
+  }
+
+  public String getPlan() {
+    return plan;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SlowStatement[%s, count=%d, total=%.3f ms, max=%.3f ms, last=%.3f ms, rows=%d, binds=%s]",
+            statement, count, totalMillis, maxMillis, lastMillis, lastRows, lastBinds);
+  }
+
+}
@@ -0,0 +1,104 @@
+package de.test.genericdao.slowquery;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Statement inspector which captures the SQL statements Hibernate prepares while a DAO operation is measured by the
+ * {@link SlowQueryLog}, so the SQL of a slow operation is known. Outside of a measurement nothing is captured.
+ *
+ * Must be configured in the persistence unit:
+ * {@code <property name="hibernate.session_factory.statement_inspector"
+ * value="de.test.genericdao.slowquery.SqlCapture"/>}
+ */
+public final class SqlCapture implements StatementInspector {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Maximum number of captured statements per operation, further statements are only counted. */
+  static final int MAX_STATEMENTS = 10;
+
+  // Index of the counters (int[] of count and depth) in the state, after the statements
+  private static final int COUNTERS = MAX_STATEMENTS;
+
+  private static final int COUNT = 0;
+
+  private static final int DEPTH = 1;
+
+  /**
+   * State of the current thread: the captured statements followed by the counters. It is created once per thread and
+   * reset after every measurement, so capturing allocates no objects. Only JDK types are stored, so the threads of a
+   * pool don't keep the classloader of the deployment reachable.
+   */
+  private static final ThreadLocal<Object[]> CAPTURE = new ThreadLocal<>();
+
+  @Override
+  public String inspect(String sql) {
+    Object[] state = CAPTURE.get();
+    if (null != state) {
+      int[] counters = (int[]) state[COUNTERS];
+      if (counters[DEPTH] > 0) {
+        if (counters[COUNT] < MAX_STATEMENTS) {
+          state[counters[COUNT]] = sql;
+        }
+        counters[COUNT]++;
+      }
+    }
+    return sql;
+  }
+
+  /**
+   * Starts capturing the statements of the current thread. Nested calls continue the capture of the outer call.
+   */
+  static void begin() {
+    Object[] state = CAPTURE.get();
+    if (null == state) {
+      state = new Object[MAX_STATEMENTS + 1];
+      state[COUNTERS] = new int[2];
+      CAPTURE.set(state);
+    }
+    ((int[]) state[COUNTERS])[DEPTH]++;
+  }
+
+  /**
+   * Stops capturing the statements of the current thread, if this is the outermost call. The captured statements are
+   * released then.
+   */
+  static void end() {
+    Object[] state = CAPTURE.get();
+    if (null == state) {
+      return;
+    }
+    int[] counters = (int[]) state[COUNTERS];
+    if (counters[DEPTH] > 0 && 0 == --counters[DEPTH]) {
+      Arrays.fill(state, 0, MAX_STATEMENTS, null);
+      counters[COUNT] = 0;
+    }
+  }
+
+  /**
+   * @return Statements captured by the current thread since {@link #begin()}, in the order of their execution
+   */
+  static List<String> getStatements() {
+    Object[] state = CAPTURE.get();
+    int count = getStatementCount();
+    List<String> statements = new ArrayList<>(Math.min(count, MAX_STATEMENTS));
+    for (int i = 0; i < count && i < MAX_STATEMENTS; i++) {
+      statements.add((String) state[i]);
+    }
+    return statements;
+  }
+
+  /**
+   * @return Number of statements captured by the current thread since {@link #begin()}, including the ones exceeding
+   * {@link #MAX_STATEMENTS}
+   */
+  static int getStatementCount() {
+    Object[] state = CAPTURE.get();
+    return (null != state) ? ((int[]) state[COUNTERS])[COUNT] : 0;
+  }
+
+}
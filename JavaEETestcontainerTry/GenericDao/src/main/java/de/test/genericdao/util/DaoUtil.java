@@ -4,6 +4,14 @@ package de.test.genericdao.util;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.ParameterExpression;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * Util class for Data Access Objects.
@@ -13,6 +21,9 @@ public final class DaoUtil {
   // Name of the Oracles TO_CHAR function.
   private static final String ORACLE_TO_CHAR = "TO_CHAR";
 
+  /** Maximum number of elements of an IN list in Oracle (ORA-01795). */
+  public static final int ORACLE_IN_LIMIT = 1000;
+
   private DaoUtil() {
     throw new AssertionError("Suppress default constructor for noninstantiability");
   }
@@ -32,4 +43,116 @@ public final class DaoUtil {
     return criteriaBuilder.function(ORACLE_TO_CHAR, String.class, stringParam);
   }
 
+  /**
+   * Splits the elements into chunks of the given size, e.g. to respect the limit of IN lists.
+   * Duplicates and NULL elements are removed, the order of the remaining elements is kept.
+   *
+   * @param elements
+   *          The elements to be split. NULL is treated as empty collection.
+   * @param chunkSize
+   *          Maximum size of a chunk, must be greater then zero
+   * @param <E> Generic Type
+   * @return The chunks, never null.
+   */
+  public static <E> List<List<E>> partition(Collection<? extends E> elements, int chunkSize) {
+
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be greater then zero: " + chunkSize);
+    }
+    if (null == elements || elements.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<E> distinct = new ArrayList<>(new LinkedHashSet<E>(elements));
+    distinct.removeIf(Objects::isNull);
+
+    List<List<E>> chunks = new ArrayList<>((distinct.size() + chunkSize - 1) / chunkSize);
+    for (int from = 0; from < distinct.size(); from += chunkSize) {
+      chunks.add(distinct.subList(from, Math.min(from + chunkSize, distinct.size())));
+    }
+    return chunks;
+  }
+
+  /**
+   * Converts an id into the type of the id attribute, e.g. an Integer into a Long. Ids must have the type of the id
+   * attribute to be found in the persistence context and in the results of queries.
+   *
+   * @param id
+   *          The id, may be NULL
+   * @param idType
+   *          Java type of the id attribute
+   * @return The id in the type of the id attribute, NULL if the id is NULL
+   * @throws IllegalArgumentException
+   *           if the id has another type which can't be converted without loss, e.g. a String or a fraction
+   */
+  public static Object toIdType(Object id, Class<?> idType) {
+
+    Class<?> wrapperType = wrap(idType);
+    if (null == id || wrapperType.isInstance(id)) {
+      return id;
+    }
+
+    if (id instanceof Number && Number.class.isAssignableFrom(wrapperType)) {
+      try {
+        BigDecimal value = new BigDecimal(id.toString());
+        if (Long.class == wrapperType) {
+          return value.longValueExact();
+        } else if (Integer.class == wrapperType) {
+          return value.intValueExact();
+        } else if (Short.class == wrapperType) {
+          return value.shortValueExact();
+        } else if (Byte.class == wrapperType) {
+          return value.byteValueExact();
+        } else if (BigInteger.class == wrapperType) {
+          return value.toBigIntegerExact();
+        } else if (BigDecimal.class == wrapperType) {
+          return value;
+        }
+      } catch (ArithmeticException | NumberFormatException e) {
+        throw new IllegalArgumentException("Id " + id + " can't be converted to " + idType.getName(), e);
+      }
+    }
+    throw new IllegalArgumentException(
+        "Id " + id + " of type " + id.getClass().getName() + " does not match the id type " + idType.getName());
+  }
+
+  private static Class<?> wrap(Class<?> type) {
+    if (long.class == type) {
+      return Long.class;
+    } else if (int.class == type) {
+      return Integer.class;
+    } else if (short.class == type) {
+      return Short.class;
+    } else if (byte.class == type) {
+      return Byte.class;
+    }
+    return type;
+  }
+
+  /**
+   * Calculates the wait time before the next attempt of a retried operation: Exponential backoff (base, 2 * base,
+   * 4 * base, ... up to max) with jitter, so concurrent writers which conflicted once do not collide again at the
+   * same time. The wait time is between half and the full exponential value.
+   *
+   * @param attempt
+   *          Number of the failed attempt, starting with one. Values lower than one are treated as one.
+   * @param baseMillis
+   *          Wait time after the first attempt
+   * @param maxMillis
+   *          Upper limit of the exponential value
+   * @param random
+   *          Random value between 0 (inclusive) and 1 (exclusive), e.g. ThreadLocalRandom.current().nextDouble()
+   * @return Wait time in milliseconds, never negative.
+   */
+  public static long backoffMillis(int attempt, long baseMillis, long maxMillis, double random) {
+
+    int shift = Math.min(Math.max(attempt, 1) - 1, Long.SIZE - 2);
+    long exponential = Math.max(0, Math.min(maxMillis, (baseMillis > (maxMillis >> shift))
+            ? maxMillis
+            : baseMillis << shift));
+    long half = exponential / 2;
+
+    return half + (long) ((exponential - half) * random);
+  }
+
 }
@@ -0,0 +1,66 @@
+package de.test.genericdao.cache;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LookupCacheTest {
+
+    @Test
+    public void CachesValuesAndNegativeResults() {
+        LookupCache<String, Long> sut = new LookupCache<>(10, 1, TimeUnit.MINUTES);
+        AtomicInteger loads = new AtomicInteger();
+
+        sut.get("KING", name -> { loads.incrementAndGet(); return Optional.of(7839L); });
+        sut.get("NOBODY", name -> { loads.incrementAndGet(); return Optional.empty(); });
+        Optional<Long> king = sut.get("KING", name -> { loads.incrementAndGet(); return Optional.of(1L); });
+        Optional<Long> nobody = sut.get("NOBODY", name -> { loads.incrementAndGet(); return Optional.of(1L); });
+
+        Assertions.assertThat(king).contains(7839L);
+        Assertions.assertThat(nobody).isEmpty();
+        Assertions.assertThat(loads.get()).isEqualTo(2);
+        Assertions.assertThat(sut.getHitCount()).isEqualTo(2);
+        Assertions.assertThat(sut.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void EvictsLeastRecentlyUsedEntry() {
+        LookupCache<String, Long> sut = new LookupCache<>(2, 1, TimeUnit.MINUTES);
+
+        sut.get("A", name -> Optional.of(1L));
+        sut.get("B", name -> Optional.of(2L));
+        sut.get("A", name -> Optional.of(1L));
+        sut.get("C", name -> Optional.of(3L));
+
+        Assertions.assertThat(sut.size()).isEqualTo(2);
+        Assertions.assertThat(sut.getEvictionCount()).isEqualTo(1);
+        Assertions.assertThat(sut.get("B", name -> Optional.of(22L))).contains(22L);
+    }
+
+    @Test
+    public void ExpiresEntriesAfterTimeToLive() {
+        LookupCache<String, Long> sut = new LookupCache<>(10, 0, TimeUnit.MILLISECONDS);
+
+        sut.get("A", name -> Optional.of(1L));
+
+        Assertions.assertThat(sut.get("A", name -> Optional.of(2L))).contains(2L);
+        Assertions.assertThat(sut.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void InvalidationDuringLoadIsNotCached() {
+        LookupCache<String, Long> sut = new LookupCache<>(10, 1, TimeUnit.MINUTES);
+
+        sut.get("A", name -> {
+            sut.invalidate("A");
+            return Optional.of(1L);
+        });
+
+        Assertions.assertThat(sut.size()).isZero();
+        Assertions.assertThat(sut.get("A", name -> Optional.of(2L))).contains(2L);
+    }
+
+}
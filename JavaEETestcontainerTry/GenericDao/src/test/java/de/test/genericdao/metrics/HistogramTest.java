@@ -0,0 +1,62 @@
+package de.test.genericdao.metrics;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HistogramTest {
+
+    private final Histogram sut = new Histogram();
+
+    @Test
+    public void EmptyHistogramReturnsZero() {
+        Assertions.assertThat(sut.getCount()).isZero();
+        Assertions.assertThat(sut.getMean()).isZero();
+        Assertions.assertThat(sut.getMax()).isZero();
+        Assertions.assertThat(sut.getPercentile(0.99d)).isZero();
+    }
+
+    @Test
+    public void CountsSumAndMax() {
+        sut.record(10);
+        sut.record(30);
+        sut.record(-5);
+
+        Assertions.assertThat(sut.getCount()).isEqualTo(3);
+        Assertions.assertThat(sut.getSum()).isEqualTo(40);
+        Assertions.assertThat(sut.getMax()).isEqualTo(30);
+    }
+
+    @Test
+    public void PercentileIsUpperBoundOfBucket() {
+        for (int i = 0; i < 99; i++) {
+            sut.record(100);
+        }
+        sut.record(5_000);
+
+        // 100 is in the bucket from 64 to 127
+        Assertions.assertThat(sut.getPercentile(0.5d)).isEqualTo(127);
+        Assertions.assertThat(sut.getPercentile(0.99d)).isEqualTo(127);
+        Assertions.assertThat(sut.getPercentile(1d)).isEqualTo(5_000);
+    }
+
+    @Test
+    public void BucketsArePowersOfTwo() {
+        Assertions.assertThat(Histogram.bucketOf(0)).isEqualTo(0);
+        Assertions.assertThat(Histogram.bucketOf(1)).isEqualTo(1);
+        Assertions.assertThat(Histogram.bucketOf(2)).isEqualTo(2);
+        Assertions.assertThat(Histogram.bucketOf(3)).isEqualTo(2);
+        Assertions.assertThat(Histogram.bucketOf(Long.MAX_VALUE)).isEqualTo(Histogram.BUCKETS - 1);
+        Assertions.assertThat(Histogram.upperBoundOf(Histogram.BUCKETS - 1)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void ResetRemovesAllValues() {
+        sut.record(42);
+
+        sut.reset();
+
+        Assertions.assertThat(sut.getCount()).isZero();
+        Assertions.assertThat(sut.getMax()).isZero();
+    }
+
+}
@@ -0,0 +1,175 @@
+package de.test.genericdao.routing;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.lang.reflect.Proxy;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class ReplicaRouterTest {
+
+    private final FakeRegistry registry = new FakeRegistry();
+
+    @Test
+    public void KeepsReplicaForTheTransactionAndBalancesRoundRobin() {
+        ReplicaRouter sut = new ReplicaRouter(Arrays.asList(replica("A", false), replica("B", false)),
+                entityManager("PRIMARY", false), BalancingStrategy.ROUND_ROBIN, false, registry);
+
+        List<Object> reads = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            registry.begin();
+            reads.add(read(sut));
+            reads.add(read(sut));
+            registry.complete();
+        }
+
+        Assertions.assertThat(reads).containsExactly("A", "A", "B", "B");
+        Assertions.assertThat(sut.getReplicas()).allMatch(replica -> replica.getOutstanding() == 0);
+    }
+
+    @Test
+    public void EjectsReplicaAfterConsecutiveConnectionFailures() {
+        Replica broken = replica("BROKEN", true);
+        ReplicaRouter sut = new ReplicaRouter(Arrays.asList(broken, replica("A", false)),
+                entityManager("PRIMARY", false), BalancingStrategy.ROUND_ROBIN, false, registry, 1, 1, TimeUnit.HOURS);
+
+        Assertions.assertThatThrownBy(() -> read(sut)).isInstanceOf(PersistenceException.class);
+
+        Assertions.assertThat(broken.isEjected()).isTrue();
+        Assertions.assertThat(read(sut)).isEqualTo("A");
+        Assertions.assertThat(read(sut)).isEqualTo("A");
+    }
+
+    @Test
+    public void UsesPrimaryIfAllReplicasAreEjected() {
+        ReplicaRouter sut = new ReplicaRouter(Arrays.asList(replica("BROKEN", true)),
+                entityManager("PRIMARY", false), BalancingStrategy.LEAST_OUTSTANDING, false, registry, 1, 1,
+                TimeUnit.HOURS);
+
+        Assertions.assertThatThrownBy(() -> read(sut)).isInstanceOf(PersistenceException.class);
+
+        Assertions.assertThat(read(sut)).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    public void ReadsOwnWritesFromPrimary() {
+        ReplicaRouter sut = new ReplicaRouter(Arrays.asList(replica("A", false)), entityManager("PRIMARY", false),
+                BalancingStrategy.LATENCY_WEIGHTED, true, registry);
+
+        registry.begin();
+        Object beforeWrite = read(sut);
+        sut.markWritten();
+        Object afterWrite = read(sut);
+        registry.complete();
+
+        Assertions.assertThat(beforeWrite).isEqualTo("A");
+        Assertions.assertThat(afterWrite).isEqualTo("PRIMARY");
+        Assertions.assertThat(sut.getReplicas().get(0).getOutstanding()).isZero();
+    }
+
+    @Test
+    public void ResolvesReplicasOfRoutingEntityManager() {
+        Replica replica = replica("A", false);
+        EntityManager plain = entityManager("PLAIN", false);
+        ReplicaRouter sut = new ReplicaRouter(Arrays.asList(replica), plain, BalancingStrategy.ROUND_ROBIN, false,
+                registry);
+
+        Assertions.assertThat(ReplicaRouter.resolve(sut.getEntityManager())).containsExactly(replica.getEntityManager());
+        Assertions.assertThat(ReplicaRouter.resolve(plain)).containsExactly(plain);
+    }
+
+    private static Object read(ReplicaRouter router) {
+        return router.getEntityManager().find(Object.class, 1L);
+    }
+
+    private static Replica replica(String name, boolean broken) {
+        return new Replica(name, entityManager(name, broken));
+    }
+
+    /**
+     * EntityManager returning its name for every find, or failing with a connection failure.
+     */
+    private static EntityManager entityManager(String name, boolean broken) {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[] {EntityManager.class}, (proxy, method, args) -> {
+                    if ("equals".equals(method.getName())) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName())) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (broken) {
+                        throw new PersistenceException(new SQLTransientConnectionException("Connection refused"));
+                    }
+                    return "find".equals(method.getName()) ? name : null;
+                });
+    }
+
+    private static final class FakeRegistry implements TransactionSynchronizationRegistry {
+
+        private int status = Status.STATUS_NO_TRANSACTION;
+
+        private final Map<Object, Object> resources = new HashMap<>();
+
+        private final List<Synchronization> synchronizations = new ArrayList<>();
+
+        void begin() {
+            status = Status.STATUS_ACTIVE;
+        }
+
+        void complete() {
+            status = Status.STATUS_COMMITTED;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+            synchronizations.clear();
+            resources.clear();
+            status = Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public Object getTransactionKey() {
+            return (Status.STATUS_NO_TRANSACTION == status) ? null : this;
+        }
+
+        @Override
+        public void putResource(Object key, Object value) {
+            resources.put(key, value);
+        }
+
+        @Override
+        public Object getResource(Object key) {
+            return resources.get(key);
+        }
+
+        @Override
+        public void registerInterposedSynchronization(Synchronization sync) {
+            synchronizations.add(sync);
+        }
+
+        @Override
+        public int getTransactionStatus() {
+            return status;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return Status.STATUS_MARKED_ROLLBACK == status;
+        }
+    }
+
+}
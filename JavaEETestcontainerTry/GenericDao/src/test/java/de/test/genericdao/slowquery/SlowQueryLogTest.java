@@ -0,0 +1,92 @@
+package de.test.genericdao.slowquery;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SlowQueryLogTest {
+
+    private static final String SQL = "/* select e from Emp e where e.ename = :name */"
+            + " select emp0_.EMPNO as EMPNO1_0_\n  from SCHEMAUSER.EMP emp0_ where emp0_.ENAME=?";
+
+    private final SqlCapture inspector = new SqlCapture();
+
+    @Test
+    public void NormalizeReplacesLiteralsAndInLists() {
+        Assertions.assertThat(SlowQueryLog.normalize(
+                "select emp0_.EMPNO from EMP emp0_  where emp0_.ENAME = 'KING''S'\n and emp0_.SAL > 1000.5"
+                        + " and emp0_.EMPNO in (?, ?,?)"))
+                .isEqualTo("select emp0_.EMPNO from EMP emp0_ where emp0_.ENAME = ? and emp0_.SAL > ?"
+                        + " and emp0_.EMPNO in (?...)");
+    }
+
+    @Test
+    public void NormalizeRemovesComments() {
+        Assertions.assertThat(SlowQueryLog.normalize(SQL))
+                .isEqualTo("select emp0_.EMPNO as EMPNO1_0_ from SCHEMAUSER.EMP emp0_ where emp0_.ENAME=?");
+    }
+
+    @Test
+    public void PlaceholdersAreReplacedByBindVariables() {
+        Assertions.assertThat(
+                ExplainPlan.toBindVariables("/* ? */ select * from EMP where ENAME = ? and JOB <> '?' and SAL > ?"))
+                .isEqualTo("select * from EMP where ENAME = :1 and JOB <> '?' and SAL > :2");
+    }
+
+    @Test
+    public void FastQueryIsNotSlow() {
+        SlowQueryLog sut = new SlowQueryLog(60_000, false);
+
+        long start = sut.start();
+        Assertions.assertThat(sut.isSlow(start)).isFalse();
+        sut.end(start);
+    }
+
+    @Test
+    public void DisabledLogCapturesNothing() {
+        SlowQueryLog sut = new SlowQueryLog(-1, true);
+
+        long start = sut.start();
+        inspector.inspect(SQL);
+        Assertions.assertThat(sut.isSlow(start)).isFalse();
+        Assertions.assertThat(SqlCapture.getStatementCount()).isZero();
+        sut.end(start);
+        Assertions.assertThat(sut.getThresholdMillis()).isEqualTo(-1);
+    }
+
+    @Test
+    public void SlowExecutionsAreAggregatedByStatementAndExplainedOnce() {
+        SlowQueryLog sut = new SlowQueryLog(0, true);
+        int[] plans = new int[1];
+
+        for (String name : new String[] {"KING", "BLAKE"}) {
+            long start = sut.start();
+            inspector.inspect(SQL);
+            Assertions.assertThat(sut.isSlow(start)).isTrue();
+            sut.record(start, "select e from Emp e where e.ename = :name", "[name=" + name + "]", 1, sql -> {
+                plans[0]++;
+                return "TABLE ACCESS FULL EMP";
+            });
+            sut.end(start);
+        }
+
+        Assertions.assertThat(plans[0]).isEqualTo(1);
+        Assertions.assertThat(sut.getStatements()).hasSize(1).first().satisfies(statement -> {
+            Assertions.assertThat(statement.getCount()).isEqualTo(2);
+            Assertions.assertThat(statement.getLastBinds()).isEqualTo("[name=BLAKE]");
+            Assertions.assertThat(statement.getLastRows()).isEqualTo(1);
+            Assertions.assertThat(statement.getPlan()).isEqualTo("TABLE ACCESS FULL EMP");
+            Assertions.assertThat(statement.getMaxMillis()).isGreaterThanOrEqualTo(statement.getLastMillis());
+        });
+
+        sut.reset();
+        Assertions.assertThat(sut.getStatements()).isEmpty();
+    }
+
+    @Test
+    public void StatementsOutsideOfAMeasurementAreNotCaptured() {
+        inspector.inspect(SQL);
+
+        Assertions.assertThat(SqlCapture.getStatementCount()).isZero();
+    }
+
+}
@@ -0,0 +1,58 @@
+package de.test.genericdao.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+public class DaoUtilTest {
+
+    @Test
+    public void PartitionRemovesNullAndDuplicates() {
+        Assertions.assertThat(DaoUtil.partition(Arrays.asList(3, null, 1, 3, 2, 4, 5), 2))
+                .containsExactly(Arrays.asList(3, 1), Arrays.asList(2, 4), Arrays.asList(5));
+        Assertions.assertThat(DaoUtil.partition(null, 2)).isEmpty();
+    }
+
+    @Test
+    public void ToIdTypeConvertsMixedNumbers() {
+        Assertions.assertThat(Stream.of(1, 2L, (short) 3, new BigDecimal("4.0"), BigInteger.valueOf(5))
+                .map(id -> DaoUtil.toIdType(id, Long.class)))
+                .containsExactly(1L, 2L, 3L, 4L, 5L);
+        Assertions.assertThat(DaoUtil.toIdType(7L, int.class)).isEqualTo(7);
+        Assertions.assertThat(DaoUtil.toIdType(null, Long.class)).isNull();
+    }
+
+    @Test
+    public void ToIdTypeRejectsLossyConversionsAndOtherTypes() {
+        Assertions.assertThatIllegalArgumentException().isThrownBy(() -> DaoUtil.toIdType(1.5d, Long.class));
+        Assertions.assertThatIllegalArgumentException()
+                .isThrownBy(() -> DaoUtil.toIdType(Long.MAX_VALUE, Integer.class));
+        Assertions.assertThatIllegalArgumentException().isThrownBy(() -> DaoUtil.toIdType("1", Long.class));
+    }
+
+    @Test
+    public void BackoffDoublesPerAttempt() {
+        Assertions.assertThat(DaoUtil.backoffMillis(1, 10, 500, 0.999d)).isEqualTo(9);
+        Assertions.assertThat(DaoUtil.backoffMillis(2, 10, 500, 0.999d)).isEqualTo(19);
+        Assertions.assertThat(DaoUtil.backoffMillis(3, 10, 500, 0.999d)).isEqualTo(39);
+    }
+
+    @Test
+    public void BackoffIsAtLeastHalf() {
+        Assertions.assertThat(DaoUtil.backoffMillis(1, 10, 500, 0d)).isEqualTo(5);
+        Assertions.assertThat(DaoUtil.backoffMillis(3, 10, 500, 0d)).isEqualTo(20);
+        Assertions.assertThat(DaoUtil.backoffMillis(0, 10, 500, 0d)).isEqualTo(5);
+    }
+
+    @Test
+    public void BackoffIsLimited() {
+        Assertions.assertThat(DaoUtil.backoffMillis(7, 10, 500, 0.999d)).isEqualTo(499);
+        Assertions.assertThat(DaoUtil.backoffMillis(Integer.MAX_VALUE, 10, 500, 0d)).isEqualTo(250);
+        Assertions.assertThat(DaoUtil.backoffMillis(Integer.MAX_VALUE, Long.MAX_VALUE, 500, 0d)).isEqualTo(250);
+    }
+
+}
@@ -0,0 +1,165 @@
+package de.test.benchmark;
+
+import de.test.dao.impl.BenchmarkEmpDao;
+import de.test.entities.Emp;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Embedded H2 database for the benchmarks. The database is created with the test data of the EJB module and filled
+ * up with copies of it to the requested number of Emps.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    /** Persistence unit of the embedded database, see META-INF/persistence.xml. */
+    static final String PERSISTENCE_UNIT = "Benchmark";
+
+    /** Test data script of the EJB module, copied to the classpath by the build. */
+    private static final String TEST_DATA_SCRIPT = "classpath:/scripts/prepare_test.sql";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> empnos;
+
+    private final List<String> enames;
+
+    private BenchmarkDatabase(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+
+        List<Emp> emps = inTransaction(BenchmarkEmpDao::findAll);
+        List<Long> numbers = new ArrayList<>(emps.size());
+        List<String> names = new ArrayList<>(emps.size());
+        emps.forEach(emp -> {
+            numbers.add(emp.getEmpno());
+            names.add(emp.getEname());
+        });
+        this.empnos = Collections.unmodifiableList(numbers);
+        this.enames = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Creates the database and fills it with the given number of Emps (at least the Emps of the test data).
+     *
+     * @param size Number of Emps
+     * @return Database, must be closed after usage
+     */
+    public static BenchmarkDatabase create(int size) {
+
+        EntityManagerFactory entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            loadTestData(entityManager);
+            entityManager.getTransaction().commit();
+
+            entityManager.getTransaction().begin();
+            fillUp(new BenchmarkEmpDao(entityManager), size);
+            entityManager.getTransaction().commit();
+        } catch (RuntimeException e) {
+            entityManagerFactory.close();
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+
+        return new BenchmarkDatabase(entityManagerFactory);
+    }
+
+    /**
+     * Runs the test data script. The script inserts the department of the Emps too, which is not mapped by the entity.
+     * The version is not inserted by the script, the Emps start with version 0 like in Configs/sql/migrateEmpVersion.sql.
+     * The sequence is moved behind the numbers of the test data, like Configs/sql/migrateEmpSequence.sql does.
+     */
+    private static void loadTestData(EntityManager entityManager) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE SCHEMAUSER.EMP ADD COLUMN DEPTNO NUMBER(2)");
+                statement.execute("ALTER TABLE SCHEMAUSER.EMP ALTER COLUMN VERSION SET DEFAULT 0");
+                statement.execute("RUNSCRIPT FROM '" + TEST_DATA_SCRIPT + "'");
+                statement.execute("ALTER SEQUENCE SCHEMAUSER.EMP_SEQ RESTART WITH 10000");
+            }
+        });
+    }
+
+    /**
+     * Adds copies of the Emps of the test data (same job, manager, salary and hire date, numbered name) until the
+     * table contains the given number of Emps.
+     */
+    private static void fillUp(BenchmarkEmpDao dao, int size) {
+
+        List<Emp> templates = dao.findAll();
+        List<Emp> copies = new ArrayList<>(Math.max(0, size - templates.size()));
+        for (int i = templates.size(); i < size; i++) {
+            Emp template = templates.get(i % templates.size());
+
+            Emp copy = new Emp();
+            copy.setEname(template.getEname() + "_" + i);
+            copy.setJob(template.getJob());
+            copy.setEmp(template.getEmp());
+            copy.setHiredate(template.getHiredate());
+            copy.setSal(template.getSal());
+            copy.setComm(template.getComm());
+            copies.add(copy);
+        }
+
+        dao.createBulk(copies);
+    }
+
+    /**
+     * @return Numbers of all Emps in the database
+     */
+    public List<Long> getEmpnos() {
+        return empnos;
+    }
+
+    /**
+     * @return Names of all Emps in the database
+     */
+    public List<String> getEnames() {
+        return enames;
+    }
+
+    /**
+     * @return New EntityManager, must be closed after usage
+     */
+    public EntityManager createEntityManager() {
+        return entityManagerFactory.createEntityManager();
+    }
+
+    /**
+     * Executes the work in a new transaction, which is committed afterwards.
+     *
+     * @param work Work using the DAO
+     * @param <R>  Type of the result
+     * @return Result of the work
+     */
+    public <R> R inTransaction(Function<BenchmarkEmpDao, R> work) {
+
+        EntityManager entityManager = createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            R result = work.apply(new BenchmarkEmpDao(entityManager));
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        entityManagerFactory.close();
+    }
+
+}
@@ -0,0 +1,116 @@
+package de.test.benchmark;
+
+import de.test.dto.EmpSummary;
+import de.test.entities.Emp;
+import de.test.entities.Emp_;
+import de.test.genericdao.dao.KeysetPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading methods of the EmpDao and the criteria query helpers of the GenericDao at different table sizes.
+ * Every call runs in its own transaction with an empty persistence context, like a call of the EmpService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmpDaoReadBenchmark {
+
+    private static final BigDecimal SALARY = new BigDecimal("2000");
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    private BenchmarkDatabase database;
+
+    @Setup(Level.Trial)
+    public void createDatabase() {
+        database = BenchmarkDatabase.create(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Benchmark
+    public Optional<Emp> find() {
+        long empno = randomOf(database.getEmpnos());
+        return database.inTransaction(dao -> dao.find(empno));
+    }
+
+    @Benchmark
+    public List<Emp> findAll() {
+        return database.inTransaction(dao -> dao.findAll());
+    }
+
+    @Benchmark
+    public List<Emp> getAllEmps() {
+        return database.inTransaction(dao -> dao.getAllEmps());
+    }
+
+    @Benchmark
+    public List<Emp> getAllEmpsWithManager() {
+        return database.inTransaction(dao -> dao.getAllEmpsWithManager());
+    }
+
+    @Benchmark
+    public Optional<Emp> findByName() {
+        String ename = randomOf(database.getEnames());
+        return database.inTransaction(dao -> dao.findByName(ename));
+    }
+
+    @Benchmark
+    public List<EmpSummary> findAllAs() {
+        return database.inTransaction(dao -> dao.findAllAs(EmpSummary.class,
+                Arrays.asList(Emp_.empno, Emp_.ename, Emp_.job)));
+    }
+
+    @Benchmark
+    public KeysetPage<Emp, String> findPage() {
+        return database.inTransaction(dao -> dao.findPage(Emp_.ename, null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<Emp> findByCriteriaQuery() {
+        return database.inTransaction(dao -> dao.findBySalaryAbove(SALARY));
+    }
+
+    @Benchmark
+    public List<Emp> findByTemplateQuery() {
+        return database.inTransaction(dao -> dao.findBySalaryAboveTemplate(SALARY));
+    }
+
+    @Benchmark
+    public Optional<Emp> findByCriteriaQueryFirstResult() {
+        return database.inTransaction(dao -> dao.findFirstBySalaryAbove(SALARY));
+    }
+
+    private static <E> E randomOf(List<E> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+}
@@ -0,0 +1,142 @@
+package de.test.benchmark;
+
+import de.test.dao.impl.BenchmarkEmpDao;
+import de.test.entities.Emp;
+import de.test.entities.Emp_;
+import de.test.genericdao.dao.BulkResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing methods of the GenericDao for different numbers of Emps per call. The changes are flushed (so the statements
+ * are executed) and rolled back afterwards, so every invocation works on the same data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmpDaoWriteBenchmark {
+
+    /** Number of Emps in the table. */
+    private static final int TABLE_SIZE = 1000;
+
+    private static final BigDecimal RAISE = new BigDecimal("100");
+
+    @Param({"1", "50", "500"})
+    int batchSize;
+
+    BenchmarkDatabase database;
+
+    @Setup(Level.Trial)
+    public void createDatabase() {
+        database = BenchmarkDatabase.create(TABLE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() {
+        database.close();
+    }
+
+    /**
+     * Transaction of one invocation, rolled back after the invocation.
+     */
+    public abstract static class Transaction {
+
+        EntityManager entityManager;
+
+        BenchmarkEmpDao dao;
+
+        List<Emp> emps;
+
+        @Setup(Level.Invocation)
+        public void begin(EmpDaoWriteBenchmark benchmark) {
+            entityManager = benchmark.database.createEntityManager();
+            entityManager.getTransaction().begin();
+            dao = new BenchmarkEmpDao(entityManager);
+            emps = prepare(benchmark.batchSize);
+        }
+
+        @TearDown(Level.Invocation)
+        public void rollback() {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+
+        abstract List<Emp> prepare(int batchSize);
+    }
+
+    /**
+     * New Emps.
+     */
+    @State(Scope.Thread)
+    public static class NewEmps extends Transaction {
+
+        @Override
+        List<Emp> prepare(int batchSize) {
+            List<Emp> newEmps = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                Emp emp = new Emp();
+                emp.setEname("NEW_" + i);
+                emp.setJob("CLERK");
+                emp.setSal(BigDecimal.TEN);
+                newEmps.add(emp);
+            }
+            return newEmps;
+        }
+    }
+
+    /**
+     * Detached Emps with a changed salary, like they are passed to the EmpService.
+     */
+    @State(Scope.Thread)
+    public static class ChangedEmps extends Transaction {
+
+        @Override
+        List<Emp> prepare(int batchSize) {
+            List<Emp> changedEmps = dao.findPage(Emp_.empno, null, batchSize).getContent();
+            entityManager.clear();
+            changedEmps.forEach(emp -> emp.setSal(emp.getSal().add(RAISE)));
+            return changedEmps;
+        }
+    }
+
+    @Benchmark
+    public List<Emp> create(NewEmps transaction) {
+        return transaction.dao.create(transaction.emps, true);
+    }
+
+    @Benchmark
+    public BulkResult createBulk(NewEmps transaction) {
+        return transaction.dao.createBulk(transaction.emps);
+    }
+
+    @Benchmark
+    public List<Emp> update(ChangedEmps transaction) {
+        return transaction.dao.update(transaction.emps, true);
+    }
+
+    @Benchmark
+    public BulkResult updateBulk(ChangedEmps transaction) {
+        return transaction.dao.updateBulk(transaction.emps);
+    }
+
+}
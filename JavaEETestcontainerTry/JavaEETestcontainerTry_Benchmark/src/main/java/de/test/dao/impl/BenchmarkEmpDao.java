@@ -0,0 +1,84 @@
+package de.test.dao.impl;
+
+import de.test.entities.Emp;
+import de.test.entities.Emp_;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * EmpDao outside of the application server: The EntityManager and the name cache are set instead of injected, the
+ * protected criteria query helpers of the GenericDao are made accessible to the benchmarks.
+ */
+public class BenchmarkEmpDao extends EmpDao {
+
+    private static final String TEMPLATE_SALARY_ABOVE = "benchmark.salaryAbove";
+
+    private static final String PARAM_SAL = "sal";
+
+    private static final EmpNameCache NAME_CACHE = new EmpNameCache();
+
+    /**
+     * Creates a new DAO. All DAOs share one name cache, like in the application server.
+     *
+     * @param entityManager EntityManager for reading and writing
+     */
+    public BenchmarkEmpDao(EntityManager entityManager) {
+        setEntityManager(entityManager);
+        setWritingEntityManager(entityManager);
+        nameCache = NAME_CACHE;
+    }
+
+    /**
+     * Selects the Emps earning more than the given salary with a new criteria query (translated on every call).
+     *
+     * @param sal Salary
+     * @return Emps ordered by number
+     */
+    public List<Emp> findBySalaryAbove(BigDecimal sal) {
+        return findByCriteriaQuery(createSalaryAboveQuery(getCriteriaBuilder(), sal));
+    }
+
+    /**
+     * Selects the Emps earning more than the given salary with a template query (translated once).
+     *
+     * @param sal Salary
+     * @return Emps ordered by number
+     */
+    public List<Emp> findBySalaryAboveTemplate(BigDecimal sal) {
+        TypedQuery<Emp> typedQuery = createTemplateQuery(TEMPLATE_SALARY_ABOVE,
+                builder -> createSalaryAboveQuery(builder, null));
+        typedQuery.setParameter(PARAM_SAL, sal);
+        return findByTypedQuery(typedQuery);
+    }
+
+    /**
+     * Selects the Emp with the lowest number earning more than the given salary.
+     *
+     * @param sal Salary
+     * @return First Emp
+     */
+    public Optional<Emp> findFirstBySalaryAbove(BigDecimal sal) {
+        return findByCriteriaQueryFirstResult(createSalaryAboveQuery(getCriteriaBuilder(), sal));
+    }
+
+    /**
+     * @param sal Salary to compare with, NULL to use the parameter "sal"
+     */
+    private static CriteriaQuery<Emp> createSalaryAboveQuery(CriteriaBuilder builder, BigDecimal sal) {
+        CriteriaQuery<Emp> criteriaQuery = builder.createQuery(Emp.class);
+        Root<Emp> rootEmp = criteriaQuery.from(Emp.class);
+
+        criteriaQuery.where(builder.greaterThan(rootEmp.get(Emp_.sal),
+                (null != sal) ? builder.literal(sal) : builder.parameter(BigDecimal.class, PARAM_SAL)));
+        criteriaQuery.orderBy(builder.asc(rootEmp.get(Emp_.empno)));
+        return criteriaQuery;
+    }
+
+}
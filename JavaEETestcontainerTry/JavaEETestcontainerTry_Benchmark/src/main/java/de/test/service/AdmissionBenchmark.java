@@ -0,0 +1,100 @@
+package de.test.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Burst of concurrent callers of a database limited to the connections of the datasource pool.
+ * Compares one platform thread per caller, blocked until a connection is free, with the AsyncSemaphore of the
+ * EmpAsyncService, where waiting callers are queued futures. Run with "-prof gc" to see the allocation per burst.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdmissionBenchmark {
+
+    /** Connections of the datasource pool (max-pool-size in standalone.xml). */
+    private static final int CONNECTIONS = 5;
+
+    /** Duration of one simulated database call. */
+    private static final long CALL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Param({"100", "1000", "5000"})
+    private int callers;
+
+    private ExecutorService connectionThreads;
+
+    @Setup(Level.Trial)
+    public void startExecutor() {
+        connectionThreads = Executors.newFixedThreadPool(CONNECTIONS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopExecutor() {
+        connectionThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public int blockingPlatformThreads() throws InterruptedException {
+
+        Semaphore connections = new Semaphore(CONNECTIONS, true);
+        List<Thread> threads = new ArrayList<>(callers);
+        for (int i = 0; i < callers; i++) {
+            Thread thread = new Thread(() -> {
+                connections.acquireUninterruptibly();
+                try {
+                    callDatabase();
+                } finally {
+                    connections.release();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return threads.size();
+    }
+
+    @Benchmark
+    public int asyncSemaphore() {
+
+        AsyncSemaphore connections = new AsyncSemaphore(CONNECTIONS, callers);
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[callers];
+        for (int i = 0; i < callers; i++) {
+            calls[i] = connections.submit(() -> CompletableFuture.runAsync(AdmissionBenchmark::callDatabase,
+                    connectionThreads));
+        }
+        CompletableFuture.allOf(calls).join();
+        return calls.length;
+    }
+
+    private static void callDatabase() {
+        LockSupport.parkNanos(CALL_NANOS);
+    }
+
+}
@@ -1,20 +1,80 @@
 package de.test;
 
+import de.test.genericdao.dao.impl.GenericDao;
+import de.test.genericdao.routing.BalancingStrategy;
+import de.test.genericdao.routing.Reading;
+import de.test.genericdao.routing.Replica;
+import de.test.genericdao.routing.ReplicaRouter;
+import de.test.genericdao.routing.Writing;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Default;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.Collections;
 
 @ApplicationScoped
 public class CDIContext {
 
+    // Reads (and the DAOs by default) use the reading user, writes of the DAOs are routed to the writing user.
+    // Each unit has its own connection pool, which can be sized separately in standalone.xml.
+    // Further read replicas are added as persistence units with their own datasource and registered as Replica.
     @PersistenceContext(unitName = "ReadingDS")
+    EntityManager readingEntityManager;
+
+    @PersistenceContext(unitName = "WritingDS")
+    EntityManager writingEntityManager;
+
+    @PersistenceUnit(unitName = "ReadingDS")
+    EntityManagerFactory readingEntityManagerFactory;
+
+    @PersistenceUnit(unitName = "WritingDS")
+    EntityManagerFactory writingEntityManagerFactory;
+
+    @Resource
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    private ReplicaRouter readRouter;
+
+    @PostConstruct
+    void initReadRouter() {
+        readRouter = new ReplicaRouter(Collections.singletonList(new Replica("ReadingDS", readingEntityManager)),
+                writingEntityManager, BalancingStrategy.LEAST_OUTSTANDING, true, transactionSynchronizationRegistry);
+    }
+
+    @PreDestroy
+    void releaseQueryTemplates() {
+        GenericDao.releaseQueryTemplates(readingEntityManagerFactory);
+        GenericDao.releaseQueryTemplates(writingEntityManagerFactory);
+    }
+
     @Produces
-    public EntityManager entityManager;
+    @Default
+    @Reading
+    public EntityManager produceReadingEntityManager() {
+        return readRouter.getEntityManager();
+    }
+
+    /**
+     * The writing EntityManager is requested by the DAOs for every write, so the transaction is marked as writing and
+     * reads the own changes from the primary (read-your-writes).
+     */
+    @Produces
+    @Writing
+    public EntityManager produceWritingEntityManager() {
+        readRouter.markWritten();
+        return writingEntityManager;
+    }
 
     @Produces
     public Logger produceLogger(InjectionPoint injectionPoint) {
@@ -1,52 +1,97 @@
 package de.test;
 
-import de.test.entities.Emp;
+import de.test.service.EmpAsyncService;
 import de.test.service.EmpService;
+import org.apache.logging.log4j.Logger;
 
 import javax.annotation.PostConstruct;
-import javax.ejb.EJB;
+import javax.annotation.Resource;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
-import java.util.List;
-import java.util.Optional;
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
- * This @StartUp Bean is used as a test class to verify the database configuration when the app is manually deployed
- * to an application server.
+ * Warms up the application after the deployment, so the first requests don't pay for the initialization of Hibernate
+ * (metamodel, query templates and plans), the prepared statements and the second level cache.
+ * <p>
+ * The warm-up tasks run in parallel on the managed executor of the EmpAsyncService (each task in its own transaction
+ * and with its own connection), the deployment does not wait for them. Tasks exceeding the time budget are abandoned.
+ * No task reads the whole table. The duration of every task is logged.
+ * The connection pools are filled by the datasources themselves (prefill in standalone.xml).
+ * <p>
+ * Configured by the env-entries of the bean (see ejb-jar.xml): warmUp/enabled, warmUp/budgetMillis and
+ * warmUp/cacheSize (number of emps loaded into the second level cache).
  */
-
 @Singleton
 @Startup
 public class StartUp {
 
-    @EJB
-    EmpService empService;
+    /** Time budget of the warm-up used if no env-entry is defined. */
+    static final long WARM_UP_BUDGET_MILLIS_DEFAULT = 10_000;
+
+    /** Number of emps loaded into the second level cache if no env-entry is defined. */
+    static final int WARM_UP_CACHE_SIZE_DEFAULT = 100;
+
+    @Resource(name = "warmUp/enabled")
+    boolean warmUpEnabled = true;
+
+    @Resource(name = "warmUp/budgetMillis")
+    long warmUpBudgetMillis = WARM_UP_BUDGET_MILLIS_DEFAULT;
+
+    @Resource(name = "warmUp/cacheSize")
+    int warmUpCacheSize = WARM_UP_CACHE_SIZE_DEFAULT;
+
+    @Inject
+    EmpAsyncService empAsyncService;
 
-//    @Inject
-//    Logger logger;
+    @Inject
+    Logger logger;
 
     @PostConstruct
     void postConstruct() {
-        System.out.println("=========== StartUp - POSTConstruct ===========");
 
-        // For Tests only
-        List<Emp> allEmps = empService.getAllEmps();
-        System.out.println("There are [" + allEmps.size() + "] emps stored");
-
-        Optional<Emp> empKing = empService.findByName("KING");
-        if (empKing.isPresent()) {
-            System.out.println("We have a King!");
-        } else {
-            System.out.println("No King was found :( ");
+        if (!warmUpEnabled) {
+            logger.info("Warm-up is disabled");
+            return;
         }
 
-        System.out.println("Trying to delete the emps, but this should fail because the app is not allowed to");
-        try {
-            empService.deleteEmp();
-        } catch (Exception e) {
-            //logger.catching(e);
-            e.printStackTrace();
-        }
+        long start = System.nanoTime();
+        CompletableFuture.allOf(
+                warmUp("queries", service -> service.warmUpQueries() + " queries"),
+                warmUp("second level cache",
+                        service -> service.getEmpPageByNumber(null, warmUpCacheSize).getContent().size() + " emps"))
+                .thenRun(() -> logger.info("Warm-up finished after {} ms (budget {} ms)", millisSince(start),
+                        warmUpBudgetMillis));
+    }
+
+    /**
+     * Runs a warm-up task asynchronously within the time budget and logs its result and duration.
+     * The returned future never completes exceptionally.
+     */
+    private CompletableFuture<Void> warmUp(String name, Function<EmpService, String> task) {
+
+        return empAsyncService.supplyAsync(service -> {
+            long start = System.nanoTime();
+            String result = task.apply(service);
+            return result + " in " + millisSince(start) + " ms";
+        }, warmUpBudgetMillis, TimeUnit.MILLISECONDS)
+                .handle((result, failure) -> {
+                    if (null == failure) {
+                        logger.info("Warm-up of {}: {}", name, result);
+                    } else {
+                        Throwable cause = (failure instanceof CompletionException) ? failure.getCause() : failure;
+                        logger.warn("Warm-up of {} failed: {}", name, cause.toString());
+                        logger.debug("Warm-up of " + name + " failed", cause);
+                    }
+                    return null;
+                });
+    }
 
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
     }
 }
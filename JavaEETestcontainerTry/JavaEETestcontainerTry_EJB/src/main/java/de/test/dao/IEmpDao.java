@@ -1,10 +1,18 @@
 package de.test.dao;
 
+import de.test.dto.EmpExportRow;
+import de.test.dto.ManagerHeadcount;
+import de.test.dto.OrgChartEntry;
+import de.test.dto.PayrollGrouping;
+import de.test.dto.PayrollStatistics;
 import de.test.entities.Emp;
 import de.test.genericdao.dao.IGenericDao;
+import de.test.genericdao.dao.PageToken;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Simple interface to wrap database access.
@@ -23,6 +31,13 @@ public interface IEmpDao extends IGenericDao<Emp> {
      */
     List<Emp> getAllEmps();
 
+    /**
+     * Selecting all records from the table together with their managers, using one statement.
+     *
+     * @return List of stored EMP-Entities with initialized managers
+     */
+    List<Emp> getAllEmpsWithManager();
+
     /**
      * Searches a record by name of the Emp.
      *
@@ -31,4 +46,56 @@ public interface IEmpDao extends IGenericDao<Emp> {
      */
     Optional<Emp> findByName(String name);
 
+    /**
+     * Selects the Emp and all Emps below it (depth first, siblings sorted by name) with one statement.
+     *
+     * @param empno Number of the Emp to start with
+     * @return Subtree, empty if there is no Emp with the number
+     */
+    List<OrgChartEntry> findSubtree(long empno);
+
+    /**
+     * Selects the Emp and all its managers up to the top of the hierarchy with one statement.
+     *
+     * @param empno Number of the Emp to start with
+     * @return Manager chain starting with the Emp, empty if there is no Emp with the number
+     */
+    List<OrgChartEntry> findManagerChain(long empno);
+
+    /**
+     * Selects the headcount of every Emp having at least one direct report with one statement.
+     *
+     * @return Headcounts ordered by the number of the manager
+     */
+    List<ManagerHeadcount> findManagerHeadcounts();
+
+    /**
+     * Aggregates headcount, salaries and commissions of the Emps per group with one GROUP BY statement, without loading
+     * the Emps.
+     *
+     * @param grouping Grouping of the Emps
+     * @return Statistics per group ordered by the key, followed by the total of all Emps
+     */
+    List<PayrollStatistics> findPayrollStatistics(PayrollGrouping grouping);
+
+    /**
+     * Streams the export rows of the Emps hired after the token through a server side cursor, ordered by hire date and
+     * number. No entity is loaded, so the heap needed does not depend on the number of Emps.
+     *
+     * @param since Hire date and number of the last Emp of the previous export. NULL to stream all Emps, including
+     *              the ones without hire date. Emp numbers are not ascending in insert order, so Emps inserted after
+     *              the previous export are skipped if they sort before the token.
+     * @return Stream of rows, never null. Must be closed after usage.
+     */
+    Stream<EmpExportRow> streamExportRows(PageToken<Date> since);
+
+    /**
+     * Executes every query of the DAO once, reading at most one Emp per query, so the Hibernate metamodel, the query
+     * templates, the query plans and the prepared statements are initialized before the first request.
+     * The name cache is not used.
+     *
+     * @return Number of executed queries
+     */
+    int warmUp();
+
 }
@@ -1,48 +1,383 @@
 package de.test.dao.impl;
 
 import de.test.dao.IEmpDao;
+import de.test.dto.EmpExportRow;
+import de.test.dto.ManagerHeadcount;
+import de.test.dto.OrgChartEntry;
+import de.test.dto.PayrollAmounts;
+import de.test.dto.PayrollGrouping;
+import de.test.dto.PayrollStatistics;
 import de.test.entities.Emp;
 import de.test.entities.Emp_;
+import de.test.genericdao.dao.PageToken;
 import de.test.genericdao.dao.impl.GenericDao;
 
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.query.NativeQuery;
+
+import javax.inject.Inject;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.TemporalType;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Simple interface implementation. The PersistenceContext is defined by a JPA persistence unit and provided via CDI.
  */
 public class EmpDao extends GenericDao<Emp> implements IEmpDao {
 
+    private static final String TEMPLATE_ALL_EMPS = "allEmps";
+
+    private static final String TEMPLATE_EMPNO_BY_NAME = "empnoByName";
+
+    private static final String TEMPLATE_ORG_CHART_ROWS = "orgChartRows";
+
+    private static final String TEMPLATE_EXPORT_ROWS = "exportRows";
+
+    private static final String TEMPLATE_EXPORT_ROWS_SINCE = "exportRowsSince";
+
+    /** Prefix of the payroll templates, followed by the grouping. */
+    private static final String TEMPLATE_PAYROLL = "payroll.";
+
+    private static final PayrollAmounts NO_AMOUNTS = new PayrollAmounts(0, null, null, null);
+
+    private static final String PARAM_ENAME = "ename";
+
+    private static final String PARAM_EMPNO = "empno";
+
+    private static final String PARAM_HIREDATE = "hiredate";
+
+    // Values used by the warm-up, no Emp has them
+    private static final long WARM_UP_EMPNO = -1L;
+
+    private static final String WARM_UP_ENAME = "-";
+
+    // Hierarchical queries of Oracle, NOCYCLE protects against corrupt data (e.g. an emp being its own manager)
+    private static final String SQL_SUBTREE = "SELECT empno, ename, job, mgr, LEVEL - 1 AS depth FROM Emp"
+            + " START WITH empno = :" + PARAM_EMPNO
+            + " CONNECT BY NOCYCLE PRIOR empno = mgr"
+            + " ORDER SIBLINGS BY ename, empno";
+
+    private static final String SQL_MANAGER_CHAIN = "SELECT empno, ename, job, mgr, LEVEL - 1 AS depth FROM Emp"
+            + " START WITH empno = :" + PARAM_EMPNO
+            + " CONNECT BY NOCYCLE PRIOR mgr = empno"
+            + " ORDER BY depth";
+
+    private static final String SQL_MANAGER_HEADCOUNTS = "SELECT root_empno, root_ename,"
+            + " SUM(CASE WHEN lvl = 2 THEN 1 ELSE 0 END), COUNT(*) - 1, MAX(lvl) - 1"
+            + " FROM (SELECT CONNECT_BY_ROOT empno AS root_empno, CONNECT_BY_ROOT ename AS root_ename, LEVEL AS lvl"
+            + " FROM Emp CONNECT BY NOCYCLE PRIOR empno = mgr)"
+            + " GROUP BY root_empno, root_ename"
+            + " HAVING COUNT(*) > 1"
+            + " ORDER BY root_empno";
+
+    @Inject
+    EmpNameCache nameCache;
+
   @Override
     public void removeAllEmps() {
-        getEntityManager().createQuery("DELETE FROM Emp").executeUpdate();
+        deleteWhere((builder, root) -> builder.conjunction());
     }
 
     @Override
     public List<Emp> getAllEmps() {
+        return findByTypedQuery(cacheable(createAllEmpsQuery()));
+    }
 
-        CriteriaBuilder builder = getCriteriaBuilder();
-        CriteriaQuery<Emp> criteriaQuery = builder.createQuery(Emp.class);
-        Root<Emp> rootEmp = criteriaQuery.from(Emp.class);
-
-        return findByCriteriaQuery(criteriaQuery);
+    /**
+     * Not cacheable, because results of the query cache are loaded entity by entity and the fetch graph would be lost.
+     */
+    @Override
+    public List<Emp> getAllEmpsWithManager() {
+        return findByTypedQuery(withEntityGraph(createAllEmpsQuery(), Emp.GRAPH_WITH_MANAGER));
     }
 
+    /**
+     * The name is resolved to the number of the Emp by the name cache, the Emp itself is read by its id (persistence
+     * context or second level cache). Outdated cache entries (e.g. renamed or deleted Emps) are detected and reloaded.
+     * Unknown names are cached too and answered without a query, until an Emp is created or renamed (see EmpNameCache).
+     */
     @Override
     public Optional<Emp> findByName(String name) {
 
-        CriteriaBuilder builder = getCriteriaBuilder();
-        CriteriaQuery<Emp> criteriaQuery = builder.createQuery(Emp.class);
-        Root<Emp> rootEmp = criteriaQuery.from(Emp.class);
+        if (null == name) {
+            return Optional.empty();
+        }
+
+        Optional<Long> empno = nameCache.getEmpno(name, this::findEmpnoByName);
+        if (!empno.isPresent()) {
+            return Optional.empty();
+        }
+
+        Optional<Emp> emp = find(empno.get());
+        if (emp.isPresent() && name.equals(emp.get().getEname())) {
+            return emp;
+        }
+
+        nameCache.invalidate(name);
+        return nameCache.getEmpno(name, this::findEmpnoByName).flatMap(this::find);
+    }
+
+    private TypedQuery<Emp> createAllEmpsQuery() {
+        return createTemplateQuery(TEMPLATE_ALL_EMPS, builder -> {
+            CriteriaQuery<Emp> criteriaQuery = builder.createQuery(Emp.class);
+            criteriaQuery.from(Emp.class);
+            return criteriaQuery;
+        });
+    }
+
+    @Override
+    public List<OrgChartEntry> findSubtree(long empno) {
+        if (!isHierarchicalSqlSupported()) {
+            return loadOrgChart().subtree(empno);
+        }
+        return mapOrgChartEntries(createHierarchicalQuery(SQL_SUBTREE).setParameter(PARAM_EMPNO, empno));
+    }
+
+    @Override
+    public List<OrgChartEntry> findManagerChain(long empno) {
+        if (!isHierarchicalSqlSupported()) {
+            return loadOrgChart().managerChain(empno);
+        }
+        return mapOrgChartEntries(createHierarchicalQuery(SQL_MANAGER_CHAIN).setParameter(PARAM_EMPNO, empno));
+    }
+
+    @Override
+    public List<ManagerHeadcount> findManagerHeadcounts() {
+        if (!isHierarchicalSqlSupported()) {
+            return loadOrgChart().headcounts();
+        }
+
+        List<?> rows = createHierarchicalQuery(SQL_MANAGER_HEADCOUNTS).getResultList();
+        return rows.stream()
+                .map(Object[].class::cast)
+                .map(row -> new ManagerHeadcount(((Number) row[0]).longValue(), (String) row[1],
+                        ((Number) row[2]).intValue(), ((Number) row[3]).intValue(), ((Number) row[4]).intValue()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int warmUp() {
+
+        List<Runnable> queries = new ArrayList<>(Arrays.asList(
+                () -> find(WARM_UP_EMPNO),
+                () -> findByTypedQuery(createAllEmpsQuery(), 1),
+                () -> findByTypedQuery(withEntityGraph(createAllEmpsQuery(), Emp.GRAPH_WITH_MANAGER), 1),
+                () -> findEmpnoByName(WARM_UP_ENAME),
+                () -> exists((builder, root) -> builder.equal(root.get(Emp_.ename), WARM_UP_ENAME)),
+                () -> findPage(Emp_.empno, null, 1),
+                () -> findPage(Emp_.ename, null, 1)));
+
+        // The in-memory org chart of other databases would load the whole table
+        if (isHierarchicalSqlSupported()) {
+            queries.add(() -> findSubtree(WARM_UP_EMPNO));
+            queries.add(() -> findManagerChain(WARM_UP_EMPNO));
+        }
+
+        queries.forEach(Runnable::run);
+        return queries.size();
+    }
+
+    /**
+     * Only the aggregates per group are transferred. The total is combined from the groups, like the superaggregate row
+     * of GROUP BY ROLLUP (which is not supported by JPQL), so the table is scanned only once.
+     */
+    @Override
+    public List<PayrollStatistics> findPayrollStatistics(PayrollGrouping grouping) {
 
-        Predicate whereName = builder.equal(rootEmp.get(Emp_.ename), name);
-        criteriaQuery.where(whereName);
+        TypedQuery<Tuple> typedQuery = createTemplateQuery(TEMPLATE_PAYROLL + grouping.name(), builder -> {
+            CriteriaQuery<Tuple> criteriaQuery = builder.createTupleQuery();
+            Root<Emp> rootEmp = criteriaQuery.from(Emp.class);
+            Expression<?> key = getPayrollKey(builder, rootEmp, grouping);
+            Path<BigDecimal> sal = rootEmp.get(Emp_.sal);
+            Path<BigDecimal> comm = rootEmp.get(Emp_.comm);
 
-        return findByCriteriaQuerySingleResult(criteriaQuery);
+            criteriaQuery.multiselect(key, builder.count(rootEmp),
+                    builder.count(sal), builder.sum(sal), builder.min(sal), builder.max(sal),
+                    builder.count(comm), builder.sum(comm), builder.min(comm), builder.max(comm));
+            criteriaQuery.groupBy(key);
+            criteriaQuery.orderBy(builder.asc(key));
+            return criteriaQuery;
+        });
+
+        List<PayrollStatistics> statistics = findByTypedQuery(typedQuery).stream()
+                .map(row -> new PayrollStatistics(grouping, row.get(0), false, row.get(1, Long.class),
+                        mapPayrollAmounts(row, 2), mapPayrollAmounts(row, 6)))
+                .collect(Collectors.toList());
+
+        PayrollStatistics noEmps = new PayrollStatistics(grouping, null, true, 0, NO_AMOUNTS, NO_AMOUNTS);
+        statistics.add(statistics.stream().reduce(noEmps, PayrollStatistics::combine));
+        return statistics;
+    }
+
+    @Override
+    public Stream<EmpExportRow> streamExportRows(PageToken<Date> since) {
+
+        if (null == since) {
+            return streamByTypedQuery(createExportRowsQuery(TEMPLATE_EXPORT_ROWS, false), getStreamFetchSize());
+        }
+
+        TypedQuery<EmpExportRow> typedQuery = createExportRowsQuery(TEMPLATE_EXPORT_ROWS_SINCE, true);
+        typedQuery.setParameter(PARAM_HIREDATE, since.getLastKey(), TemporalType.DATE);
+        typedQuery.setParameter(PARAM_EMPNO, since.getLastId());
+
+        return streamByTypedQuery(typedQuery, getStreamFetchSize());
+    }
+
+    /**
+     * Selects the exported columns ordered by hire date and number (index emp_hiredate_empno_ix), optionally seeking
+     * behind the last exported Emp. The manager is read from the foreign key, without joining the manager.
+     */
+    private TypedQuery<EmpExportRow> createExportRowsQuery(String name, boolean seek) {
+        return createTemplateQuery(name, builder -> {
+            CriteriaQuery<EmpExportRow> criteriaQuery = builder.createQuery(EmpExportRow.class);
+            Root<Emp> rootEmp = criteriaQuery.from(Emp.class);
+            Path<Date> hiredate = rootEmp.get(Emp_.hiredate);
+            Path<Long> empno = rootEmp.get(Emp_.empno);
+
+            criteriaQuery.select(builder.construct(EmpExportRow.class, empno, rootEmp.get(Emp_.ename),
+                    rootEmp.get(Emp_.job), rootEmp.get(Emp_.emp).get(Emp_.empno), hiredate, rootEmp.get(Emp_.sal),
+                    rootEmp.get(Emp_.comm), rootEmp.get(Emp_.version)));
+            if (seek) {
+                ParameterExpression<Date> lastHiredate = builder.parameter(Date.class, PARAM_HIREDATE);
+                ParameterExpression<Long> lastEmpno = builder.parameter(Long.class, PARAM_EMPNO);
+                criteriaQuery.where(builder.or(builder.greaterThan(hiredate, lastHiredate),
+                        builder.and(builder.equal(hiredate, lastHiredate), builder.greaterThan(empno, lastEmpno))));
+            }
+            criteriaQuery.orderBy(builder.asc(hiredate), builder.asc(empno));
+            return criteriaQuery;
+        });
+    }
+
+    /**
+     * The manager is grouped by the foreign key, without joining the manager.
+     */
+    private static Expression<?> getPayrollKey(CriteriaBuilder builder, Root<Emp> rootEmp, PayrollGrouping grouping) {
+        switch (grouping) {
+            case JOB:
+                return rootEmp.get(Emp_.job);
+            case MANAGER:
+                return rootEmp.get(Emp_.emp).get(Emp_.empno);
+            case HIRE_YEAR:
+                return builder.function("year", Integer.class, rootEmp.get(Emp_.hiredate));
+            default:
+                throw new IllegalArgumentException("Unknown grouping " + grouping);
+        }
+    }
+
+    /**
+     * Maps count, sum, min and max starting at the given position of the row.
+     */
+    private static PayrollAmounts mapPayrollAmounts(Tuple row, int position) {
+        return new PayrollAmounts(row.get(position, Long.class), row.get(position + 1, BigDecimal.class),
+                row.get(position + 2, BigDecimal.class), row.get(position + 3, BigDecimal.class));
+    }
+
+    /**
+     * Hierarchical queries (CONNECT BY) are only used with Oracle, other databases (e.g. the H2 ExampleDS) use the
+     * in-memory org chart.
+     */
+    private boolean isHierarchicalSqlSupported() {
+        return getDialect() instanceof Oracle8iDialect;
+    }
+
+    /**
+     * Creates a native query on the Emp table. Pending changes of Emps are flushed before the query is executed,
+     * because the persistence context is not used by native queries.
+     */
+    private Query createHierarchicalQuery(String sql) {
+        Query query = getEntityManager().createNativeQuery(sql);
+        query.unwrap(NativeQuery.class).addSynchronizedEntityClass(Emp.class);
+        return query;
+    }
+
+    private static List<OrgChartEntry> mapOrgChartEntries(Query query) {
+        List<?> rows = query.getResultList();
+        return rows.stream()
+                .map(Object[].class::cast)
+                .map(row -> new OrgChartEntry(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                        (null != row[3]) ? ((Number) row[3]).longValue() : null, ((Number) row[4]).intValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Loads number, name, job and manager of all Emps with one statement, without loading the entities.
+     */
+    private OrgChart loadOrgChart() {
+
+        TypedQuery<Tuple> typedQuery = createTemplateQuery(TEMPLATE_ORG_CHART_ROWS, builder -> {
+            CriteriaQuery<Tuple> criteriaQuery = builder.createTupleQuery();
+            Root<Emp> rootEmp = criteriaQuery.from(Emp.class);
+            Join<Emp, Emp> manager = rootEmp.join(Emp_.emp, JoinType.LEFT);
+
+            criteriaQuery.multiselect(rootEmp.get(Emp_.empno), rootEmp.get(Emp_.ename), rootEmp.get(Emp_.job),
+                    manager.get(Emp_.empno));
+            return criteriaQuery;
+        });
+
+        return new OrgChart(findByTypedQuery(typedQuery).stream()
+                .map(row -> new OrgChartEntry(row.get(0, Long.class), row.get(1, String.class), row.get(2, String.class),
+                        row.get(3, Long.class), 0))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Searches the number of the Emp with the given name.
+     *
+     * @param name Name of the Emp
+     * @return Number of the Emp, if there is exactly one Emp with the name
+     */
+    private Optional<Long> findEmpnoByName(String name) {
+
+        TypedQuery<Long> typedQuery = createTemplateQuery(TEMPLATE_EMPNO_BY_NAME, builder -> {
+            CriteriaQuery<Long> criteriaQuery = builder.createQuery(Long.class);
+            Root<Emp> rootEmp = criteriaQuery.from(Emp.class);
+
+            Predicate whereName = builder.equal(rootEmp.get(Emp_.ename), builder.parameter(String.class, PARAM_ENAME));
+            criteriaQuery.select(rootEmp.get(Emp_.empno));
+            criteriaQuery.where(whereName);
+            return criteriaQuery;
+        });
+        typedQuery.setParameter(PARAM_ENAME, name);
+
+        return findByTypedQuerySingleResult(typedQuery);
+    }
+
+    @Override
+    protected void afterCreate(Emp created) {
+        nameCache.invalidate(created.getEname());
+    }
+
+    @Override
+    protected void afterUpdate(Emp updated) {
+        nameCache.invalidate(updated.getEname());
+    }
+
+    @Override
+    protected void afterDelete(Emp deleted) {
+        nameCache.invalidate(deleted.getEname());
+    }
+
+    @Override
+    protected void afterBulkChange() {
+        nameCache.invalidateAll();
     }
 
 }
@@ -0,0 +1,130 @@
+package de.test.dao.impl;
+
+import de.test.genericdao.cache.LookupCache;
+
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Application wide cache of the Emp lookup by name. Maps the name to the number of the Emp, names without exactly
+ * one Emp are cached as negative result.
+ *
+ * Names changed by a transaction are invalidated immediately and again after the transaction completed. Until the
+ * commit other transactions (and reads without flush) still see the old state and may cache it, e.g. a negative
+ * result for a created Emp.
+ */
+@ApplicationScoped
+public class EmpNameCache {
+
+    /** Maximum number of cached names. */
+    static final int MAX_SIZE = 10_000;
+
+    /** Time to live of an entry in minutes. Limits the staleness for changes made outside of the application. */
+    static final long TIME_TO_LIVE_MINUTES = 5;
+
+    private final LookupCache<String, Long> cache =
+            new LookupCache<>(MAX_SIZE, TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES);
+
+    // Key of the names changed by the current transaction
+    private final Object changedNamesKey = new Object();
+
+    @Resource
+    TransactionSynchronizationRegistry registry;
+
+    /**
+     * Returns the number of the Emp with the given name, loading it if it is not cached.
+     *
+     * @param name   Name of the Emp
+     * @param loader Loader for the number of the Emp
+     * @return Number of the Emp, empty if there is not exactly one Emp with the name
+     */
+    public Optional<Long> getEmpno(String name, Function<String, Optional<Long>> loader) {
+        return cache.get(name, loader);
+    }
+
+    /**
+     * Removes the name from the cache, inside of a transaction again after its completion.
+     *
+     * @param name Name of the Emp
+     */
+    public void invalidate(String name) {
+        cache.invalidate(name);
+        ChangedNames changed = changedNames();
+        if (null != changed) {
+            changed.names.add(name);
+        }
+    }
+
+    /**
+     * Removes all names from the cache, inside of a transaction again after its completion.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        ChangedNames changed = changedNames();
+        if (null != changed) {
+            changed.all = true;
+        }
+    }
+
+    /**
+     * @return The underlying cache, e.g. to read its statistics
+     */
+    public LookupCache<String, Long> getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the names changed by the current transaction, which are invalidated after its completion.
+     *
+     * @return Changed names, NULL without active transaction
+     */
+    private ChangedNames changedNames() {
+
+        if (null == registry || Status.STATUS_ACTIVE != registry.getTransactionStatus()) {
+            return null;
+        }
+
+        ChangedNames changed = (ChangedNames) registry.getResource(changedNamesKey);
+        if (null == changed) {
+            ChangedNames registered = new ChangedNames();
+            registry.putResource(changedNamesKey, registered);
+            registry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                    // Nothing to do
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    // Also after a rollback, the transaction may have cached its own uncommitted state
+                    if (registered.all) {
+                        cache.invalidateAll();
+                    } else {
+                        registered.names.forEach(cache::invalidate);
+                    }
+                }
+            });
+            changed = registered;
+        }
+        return changed;
+    }
+
+    /**
+     * Names changed by one transaction.
+     */
+    private static final class ChangedNames {
+
+        private final Set<String> names = new HashSet<>();
+
+        private boolean all;
+    }
+
+}
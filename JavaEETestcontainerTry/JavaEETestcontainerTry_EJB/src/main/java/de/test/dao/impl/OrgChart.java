@@ -0,0 +1,117 @@
+package de.test.dao.impl;
+
+import de.test.dto.ManagerHeadcount;
+import de.test.dto.OrgChartEntry;
+
+import java.util.*;
+
+/**
+ * In-memory org chart, built from one row (number, name, job and manager) per emp. Used if the database does not
+ * support hierarchical queries. The results are the same as the ones of the hierarchical SQL of EmpDao: siblings are
+ * sorted by name and number, cycles in the hierarchy are ignored (like CONNECT BY NOCYCLE).
+ */
+final class OrgChart {
+
+    private static final Comparator<OrgChartEntry> SIBLING_ORDER = Comparator
+            .comparing(OrgChartEntry::getEname, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(OrgChartEntry::getEmpno);
+
+    private final Map<Long, OrgChartEntry> emps = new LinkedHashMap<>();
+
+    private final Map<Long, List<OrgChartEntry>> reports = new HashMap<>();
+
+    /**
+     * Creates the org chart.
+     *
+     * @param rows All emps, the depth of the rows is ignored
+     */
+    OrgChart(Collection<OrgChartEntry> rows) {
+        for (OrgChartEntry row : rows) {
+            emps.put(row.getEmpno(), row);
+            if (null != row.getMgr()) {
+                reports.computeIfAbsent(row.getMgr(), mgr -> new ArrayList<>()).add(row);
+            }
+        }
+        reports.values().forEach(list -> list.sort(SIBLING_ORDER));
+    }
+
+    /**
+     * Returns the emp and all emps below, depth first.
+     *
+     * @param empno Number of the emp to start with
+     * @return Subtree, empty if there is no emp with the number
+     */
+    List<OrgChartEntry> subtree(long empno) {
+
+        OrgChartEntry start = emps.get(empno);
+        if (null == start) {
+            return Collections.emptyList();
+        }
+
+        List<OrgChartEntry> result = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        Deque<OrgChartEntry> stack = new ArrayDeque<>();
+        stack.push(withDepth(start, 0));
+
+        while (!stack.isEmpty()) {
+            OrgChartEntry current = stack.pop();
+            if (!visited.add(current.getEmpno())) {
+                continue;
+            }
+            result.add(current);
+
+            List<OrgChartEntry> directReports = reports.getOrDefault(current.getEmpno(), Collections.emptyList());
+            for (ListIterator<OrgChartEntry> it = directReports.listIterator(directReports.size()); it.hasPrevious(); ) {
+                stack.push(withDepth(it.previous(), current.getDepth() + 1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the emp and all its managers up to the top of the hierarchy.
+     *
+     * @param empno Number of the emp to start with
+     * @return Manager chain starting with the emp, empty if there is no emp with the number
+     */
+    List<OrgChartEntry> managerChain(long empno) {
+
+        List<OrgChartEntry> result = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        OrgChartEntry current = emps.get(empno);
+
+        while (null != current && visited.add(current.getEmpno())) {
+            result.add(withDepth(current, result.size()));
+            current = (null != current.getMgr()) ? emps.get(current.getMgr()) : null;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the headcount of every emp having at least one direct report.
+     *
+     * @return Headcounts ordered by the number of the manager
+     */
+    List<ManagerHeadcount> headcounts() {
+
+        List<ManagerHeadcount> result = new ArrayList<>();
+        for (OrgChartEntry emp : emps.values()) {
+            if (!reports.containsKey(emp.getEmpno())) {
+                continue;
+            }
+            List<OrgChartEntry> team = subtree(emp.getEmpno());
+            int directReports = (int) team.stream().filter(member -> 1 == member.getDepth()).count();
+            int depth = team.stream().mapToInt(OrgChartEntry::getDepth).max().orElse(0);
+            if (directReports > 0) {
+                result.add(new ManagerHeadcount(emp.getEmpno(), emp.getEname(), directReports, team.size() - 1, depth));
+            }
+        }
+        result.sort(Comparator.comparingLong(ManagerHeadcount::getEmpno));
+        return result;
+    }
+
+    private static OrgChartEntry withDepth(OrgChartEntry entry, int depth) {
+        return new OrgChartEntry(entry.getEmpno(), entry.getEname(), entry.getJob(), entry.getMgr(), depth);
+    }
+
+}
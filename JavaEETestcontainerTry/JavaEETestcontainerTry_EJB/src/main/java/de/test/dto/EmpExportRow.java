@@ -0,0 +1,114 @@
+package de.test.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Exported columns of an emp (see de.test.export), read without loading the entity.
+ */
+public final class EmpExportRow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long empno;
+
+    private final String ename;
+
+    private final String job;
+
+    private final Long mgr;
+
+    private final Date hiredate;
+
+    private final BigDecimal sal;
+
+    private final BigDecimal comm;
+
+    private final long version;
+
+    /**
+     * Creates a new row. Used by the constructor expression of the export query, so the parameters must match the
+     * selected attributes in type and order.
+     *
+     * @param empno    Number of the emp
+     * @param ename    Name of the emp
+     * @param job      Job of the emp
+     * @param mgr      Number of the manager, NULL if the emp has no manager
+     * @param hiredate Hire date of the emp
+     * @param sal      Salary of the emp
+     * @param comm     Commission of the emp
+     * @param version  Version of the emp, incremented by every update
+     */
+    public EmpExportRow(long empno, String ename, String job, Long mgr, Date hiredate, BigDecimal sal,
+                        BigDecimal comm, long version) {
+        this.empno = empno;
+        this.ename = ename;
+        this.job = job;
+        this.mgr = mgr;
+        this.hiredate = hiredate;
+        this.sal = sal;
+        this.comm = comm;
+        this.version = version;
+    }
+
+    public long getEmpno() {
+        return empno;
+    }
+
+    public String getEname() {
+        return ename;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public Long getMgr() {
+        return mgr;
+    }
+
+    public Date getHiredate() {
+        return hiredate;
+    }
+
+    public BigDecimal getSal() {
+        return sal;
+    }
+
+    public BigDecimal getComm() {
+        return comm;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EmpExportRow)) {
+            return false;
+        }
+        EmpExportRow that = (EmpExportRow) o;
+        return empno == that.empno && version == that.version && Objects.equals(ename, that.ename)
+                && Objects.equals(job, that.job) && Objects.equals(mgr, that.mgr)
+                && Objects.equals(hiredate, that.hiredate) && Objects.equals(sal, that.sal)
+                && Objects.equals(comm, that.comm);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(empno, version);
+    }
+
+    @Override
+    public String toString() {
+        return "EmpExportRow[empno=" + empno + ", ename=" + ename + ", job=" + job + ", mgr=" + mgr + ", hiredate="
+                + hiredate + ", sal=" + sal + ", comm=" + comm + ", version=" + version + "]";
+    }
+
+}
@@ -0,0 +1,67 @@
+package de.test.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Number, name and job of an emp, e.g. for list views which do not need the whole entity.
+ */
+public final class EmpSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long empno;
+
+    private final String ename;
+
+    private final String job;
+
+    /**
+     * Creates a new summary. Used by the constructor expression of the projection query, so the parameters must match
+     * the selected attributes in type and order.
+     *
+     * @param empno Number of the emp
+     * @param ename Name of the emp
+     * @param job   Job of the emp
+     */
+    public EmpSummary(long empno, String ename, String job) {
+        this.empno = empno;
+        this.ename = ename;
+        this.job = job;
+    }
+
+    public long getEmpno() {
+        return empno;
+    }
+
+    public String getEname() {
+        return ename;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EmpSummary)) {
+            return false;
+        }
+        EmpSummary that = (EmpSummary) o;
+        return empno == that.empno && Objects.equals(ename, that.ename) && Objects.equals(job, that.job);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(empno, ename, job);
+    }
+
+    @Override
+    public String toString() {
+        return "EmpSummary[empno=" + empno + ", ename=" + ename + ", job=" + job + "]";
+    }
+
+}
@@ -0,0 +1,93 @@
+package de.test.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Size of the team of a manager: direct reports, all (indirect) reports and number of levels below the manager.
+ */
+public final class ManagerHeadcount implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long empno;
+
+    private final String ename;
+
+    private final int directReports;
+
+    private final int headcount;
+
+    private final int depth;
+
+    /**
+     * Creates a new headcount.
+     *
+     * @param empno         Number of the manager
+     * @param ename         Name of the manager
+     * @param directReports Number of emps reporting directly to the manager
+     * @param headcount     Number of all emps below the manager
+     * @param depth         Number of levels below the manager
+     */
+    public ManagerHeadcount(long empno, String ename, int directReports, int headcount, int depth) {
+        this.empno = empno;
+        this.ename = ename;
+        this.directReports = directReports;
+        this.headcount = headcount;
+        this.depth = depth;
+    }
+
+    public long getEmpno() {
+        return empno;
+    }
+
+    public String getEname() {
+        return ename;
+    }
+
+    /**
+     * @return Number of emps reporting directly to the manager
+     */
+    public int getDirectReports() {
+        return directReports;
+    }
+
+    /**
+     * @return Number of all emps below the manager
+     */
+    public int getHeadcount() {
+        return headcount;
+    }
+
+    /**
+     * @return Number of levels below the manager
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ManagerHeadcount)) {
+            return false;
+        }
+        ManagerHeadcount that = (ManagerHeadcount) o;
+        return empno == that.empno && directReports == that.directReports && headcount == that.headcount
+                && depth == that.depth && Objects.equals(ename, that.ename);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(empno, ename, directReports, headcount, depth);
+    }
+
+    @Override
+    public String toString() {
+        return "ManagerHeadcount[empno=" + empno + ", ename=" + ename + ", directReports=" + directReports
+                + ", headcount=" + headcount + ", depth=" + depth + "]";
+    }
+
+}
@@ -0,0 +1,90 @@
+package de.test.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One emp of an org chart (subtree or manager chain) with its distance to the start of the chart.
+ */
+public final class OrgChartEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long empno;
+
+    private final String ename;
+
+    private final String job;
+
+    private final Long mgr;
+
+    private final int depth;
+
+    /**
+     * Creates a new entry.
+     *
+     * @param empno Number of the emp
+     * @param ename Name of the emp
+     * @param job   Job of the emp
+     * @param mgr   Number of the manager, NULL for the top of the hierarchy
+     * @param depth Distance to the emp the chart starts with, zero for the start itself
+     */
+    public OrgChartEntry(long empno, String ename, String job, Long mgr, int depth) {
+        this.empno = empno;
+        this.ename = ename;
+        this.job = job;
+        this.mgr = mgr;
+        this.depth = depth;
+    }
+
+    public long getEmpno() {
+        return empno;
+    }
+
+    public String getEname() {
+        return ename;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * @return Number of the manager, NULL for the top of the hierarchy
+     */
+    public Long getMgr() {
+        return mgr;
+    }
+
+    /**
+     * @return Distance to the emp the chart starts with, zero for the start itself
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OrgChartEntry)) {
+            return false;
+        }
+        OrgChartEntry that = (OrgChartEntry) o;
+        return empno == that.empno && depth == that.depth && Objects.equals(ename, that.ename)
+                && Objects.equals(job, that.job) && Objects.equals(mgr, that.mgr);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(empno, ename, job, mgr, depth);
+    }
+
+    @Override
+    public String toString() {
+        return "OrgChartEntry[empno=" + empno + ", ename=" + ename + ", job=" + job + ", mgr=" + mgr + ", depth="
+                + depth + "]";
+    }
+
+}
@@ -0,0 +1,128 @@
+package de.test.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * Aggregated amounts (salary or commission) of a group of emps. Emps without an amount are not part of the aggregates.
+ */
+public final class PayrollAmounts implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Scale of the average, matching the scale of the amounts in the database. */
+    static final int AVERAGE_SCALE = 2;
+
+    private final long count;
+
+    private final BigDecimal sum;
+
+    private final BigDecimal min;
+
+    private final BigDecimal max;
+
+    /**
+     * Creates new amounts.
+     *
+     * @param count Number of emps having an amount
+     * @param sum   Sum of the amounts, null if no emp has an amount
+     * @param min   Lowest amount, null if no emp has an amount
+     * @param max   Highest amount, null if no emp has an amount
+     */
+    public PayrollAmounts(long count, BigDecimal sum, BigDecimal min, BigDecimal max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Combines the amounts of two groups, as GROUP BY ROLLUP would do for the superaggregate.
+     *
+     * @param other Amounts of another group
+     * @return Amounts of both groups
+     */
+    public PayrollAmounts combine(PayrollAmounts other) {
+        return new PayrollAmounts(count + other.count, combine(sum, other.sum, BigDecimal::add),
+                combine(min, other.min, BigDecimal::min), combine(max, other.max, BigDecimal::max));
+    }
+
+    private static BigDecimal combine(BigDecimal a, BigDecimal b, BinaryOperator<BigDecimal> op) {
+        return (null == a) ? b : ((null == b) ? a : op.apply(a, b));
+    }
+
+    /**
+     * @return Number of emps having an amount
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Sum of the amounts, null if no emp has an amount
+     */
+    public BigDecimal getSum() {
+        return sum;
+    }
+
+    /**
+     * @return Average of the amounts (rounded half up to two digits), null if no emp has an amount
+     */
+    public BigDecimal getAverage() {
+        return (count > 0 && null != sum)
+                ? sum.divide(BigDecimal.valueOf(count), AVERAGE_SCALE, RoundingMode.HALF_UP)
+                : null;
+    }
+
+    /**
+     * @return Lowest amount, null if no emp has an amount
+     */
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    /**
+     * @return Highest amount, null if no emp has an amount
+     */
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PayrollAmounts)) {
+            return false;
+        }
+        PayrollAmounts that = (PayrollAmounts) o;
+        return count == that.count && compare(sum, that.sum) && compare(min, that.min) && compare(max, that.max);
+    }
+
+    /**
+     * BigDecimals are compared by value, the database may return them with another scale.
+     */
+    private static boolean compare(BigDecimal a, BigDecimal b) {
+        return (null == a) ? (null == b) : (null != b && 0 == a.compareTo(b));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, strip(sum), strip(min), strip(max));
+    }
+
+    private static BigDecimal strip(BigDecimal value) {
+        return (null != value) ? value.stripTrailingZeros() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "PayrollAmounts[count=" + count + ", sum=" + sum + ", avg=" + getAverage() + ", min=" + min + ", max="
+                + max + "]";
+    }
+
+}
@@ -0,0 +1,17 @@
+package de.test.dto;
+
+/**
+ * Grouping of the payroll statistics (see PayrollStatistics).
+ */
+public enum PayrollGrouping {
+
+    /** Grouped by the job of the emps, the key is the job (String). */
+    JOB,
+
+    /** Grouped by the manager of the emps, the key is the number of the manager (Long). */
+    MANAGER,
+
+    /** Grouped by the year the emps were hired, the key is the year (Integer). */
+    HIRE_YEAR
+
+}
@@ -0,0 +1,115 @@
+package de.test.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Payroll statistics of a group of emps (see PayrollGrouping) or of all emps (total): headcount and aggregated salary
+ * and commission.
+ */
+public final class PayrollStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PayrollGrouping grouping;
+
+    private final Object key;
+
+    private final boolean total;
+
+    private final long headcount;
+
+    private final PayrollAmounts salary;
+
+    private final PayrollAmounts commission;
+
+    /**
+     * Creates new statistics.
+     *
+     * @param grouping   Grouping of the statistics
+     * @param key        Key of the group (type depends on the grouping), null for the total or emps without a value
+     * @param total      true if these are the statistics of all emps
+     * @param headcount  Number of emps of the group
+     * @param salary     Aggregated salaries
+     * @param commission Aggregated commissions
+     */
+    public PayrollStatistics(PayrollGrouping grouping, Object key, boolean total, long headcount, PayrollAmounts salary,
+            PayrollAmounts commission) {
+        this.grouping = grouping;
+        this.key = key;
+        this.total = total;
+        this.headcount = headcount;
+        this.salary = salary;
+        this.commission = commission;
+    }
+
+    /**
+     * Combines the statistics of two groups to the total of both.
+     *
+     * @param other Statistics of another group of the same grouping
+     * @return Total of both groups
+     */
+    public PayrollStatistics combine(PayrollStatistics other) {
+        return new PayrollStatistics(grouping, null, true, headcount + other.headcount, salary.combine(other.salary),
+                commission.combine(other.commission));
+    }
+
+    public PayrollGrouping getGrouping() {
+        return grouping;
+    }
+
+    /**
+     * @return Key of the group: the job (String), number of the manager (Long) or hire year (Integer). Null for the
+     * total and for the group of emps without a value (e.g. without manager).
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * @return true if these are the statistics of all emps
+     */
+    public boolean isTotal() {
+        return total;
+    }
+
+    /**
+     * @return Number of emps of the group
+     */
+    public long getHeadcount() {
+        return headcount;
+    }
+
+    public PayrollAmounts getSalary() {
+        return salary;
+    }
+
+    public PayrollAmounts getCommission() {
+        return commission;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PayrollStatistics)) {
+            return false;
+        }
+        PayrollStatistics that = (PayrollStatistics) o;
+        return total == that.total && headcount == that.headcount && grouping == that.grouping
+                && Objects.equals(key, that.key) && salary.equals(that.salary) && commission.equals(that.commission);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(grouping, key, total, headcount, salary, commission);
+    }
+
+    @Override
+    public String toString() {
+        return "PayrollStatistics[grouping=" + grouping + ", key=" + key + ", total=" + total + ", headcount="
+                + headcount + ", salary=" + salary + ", commission=" + commission + "]";
+    }
+
+}
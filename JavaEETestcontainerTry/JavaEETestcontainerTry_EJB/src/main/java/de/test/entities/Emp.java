@@ -1,5 +1,10 @@
 package de.test.entities;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.QueryHints;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -10,13 +15,33 @@ import java.util.List;
  * The persistent class for the EMP database table.
  */
 @Entity
-@NamedQuery(name = "Emp.findAll", query = "SELECT e FROM Emp e")
+@NamedEntityGraph(name = Emp.GRAPH_WITH_MANAGER, attributeNodes = @NamedAttributeNode("emp"))
+@NamedQuery(name = "Emp.findAll", query = "SELECT e FROM Emp e",
+        hints = @QueryHint(name = QueryHints.CACHEABLE, value = "true"))
 @Table(name = "Emp") // Note: No schema is set because synonyms are used
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size = Emp.BATCH_FETCH_SIZE)
 public class Emp implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /** Entity graph which fetches the manager together with the emp. */
+    public static final String GRAPH_WITH_MANAGER = "Emp.withManager";
+
+    /** Number of lazy managers or subordinate lists which are initialized with one select. */
+    static final int BATCH_FETCH_SIZE = 25;
+
+    /** Sequence of the emp numbers. */
+    static final String ID_SEQUENCE = "EMP_SEQ";
+
+    /**
+     * Number of emp numbers allocated with one call of the sequence (pooled-lo optimizer, see persistence.xml).
+     * Must match the INCREMENT BY of the sequence (see Configs/sql/migrateEmpSequence.sql).
+     */
+    static final int ID_BLOCK_SIZE = 50;
+
     @Id
-    @SequenceGenerator(name = "EMP_EMPNO_GENERATOR", allocationSize = 1)
+    @SequenceGenerator(name = "EMP_EMPNO_GENERATOR", sequenceName = Emp.ID_SEQUENCE, allocationSize = Emp.ID_BLOCK_SIZE)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "EMP_EMPNO_GENERATOR")
     private long empno;
 
@@ -31,13 +56,20 @@ public class Emp implements Serializable {
 
     private BigDecimal sal;
 
-    // bi-directional many-to-one association to Emp
-    @ManyToOne
+    // Incremented by every update, concurrent updates are detected instead of overwriting each other
+    // (optimistic locking, see Configs/sql/migrateEmpVersion.sql)
+    @Version
+    private long version;
+
+    // bi-directional many-to-one association to Emp, lazy to avoid one select per manager (see GRAPH_WITH_MANAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "MGR")
     private Emp emp;
 
     // bi-directional many-to-one association to Emp
     @OneToMany(mappedBy = "emp")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @BatchSize(size = BATCH_FETCH_SIZE)
     private List<Emp> emps;
 
     public Emp() {
@@ -91,6 +123,10 @@ public class Emp implements Serializable {
         this.sal = sal;
     }
 
+    public long getVersion() {
+        return this.version;
+    }
+
     public Emp getEmp() {
         return this.emp;
     }
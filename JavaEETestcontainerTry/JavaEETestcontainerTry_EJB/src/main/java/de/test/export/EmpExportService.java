@@ -0,0 +1,142 @@
+package de.test.export;
+
+import de.test.dao.IEmpDao;
+import de.test.dto.EmpExportRow;
+import de.test.genericdao.dao.BulkResult;
+import de.test.genericdao.dao.PageToken;
+import de.test.monitoring.ServiceMetricsInterceptor;
+import org.apache.logging.log4j.Logger;
+
+import javax.ejb.LocalBean;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.interceptor.Interceptors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports the emps into files, e.g. for the nightly transfer into other systems. The emps are streamed from a server
+ * side cursor (see IEmpDao#streamExportRows) and written line by line through a buffered channel, so the heap needed
+ * does not depend on the number of emps.
+ * Incremental exports only contain the emps hired after the cursor of the previous export (see
+ * ExportResult#getCursor). They are not a change data capture, see the limitations at
+ * {@link #export(Path, ExportFormat, boolean, PageToken)}.
+ * The cursor is only open inside of the transaction, so an export runs in one transaction. Its timeout is raised to
+ * one hour in META-INF/jboss-ejb3.xml, the default timeout of the server is too short for large exports.
+ */
+@Stateless
+@LocalBean
+@Interceptors(ServiceMetricsInterceptor.class)
+public class EmpExportService {
+
+    /** Suffix of the file which is written until the export is complete. */
+    static final String PART_SUFFIX = ".part";
+
+    /** Initial capacity of the line buffer, enough for most emps. */
+    private static final int LINE_CAPACITY = 256;
+
+    @Inject
+    IEmpDao empDao;
+
+    @Inject
+    Logger logger;
+
+    /**
+     * Exports all emps, see {@link #export(Path, ExportFormat, boolean, PageToken)}.
+     *
+     * @param file   File to be written, an existing file is replaced
+     * @param format Format of the file
+     * @param gzip   true to compress the file with GZIP
+     * @return The written file, the number of exported emps and the cursor for the next incremental export
+     */
+    public ExportResult exportAll(Path file, ExportFormat format, boolean gzip) {
+        return export(file, format, gzip, null);
+    }
+
+    /**
+     * Exports the emps hired after the cursor, ordered by hire date and number. The file is written under a temporary
+     * name (suffix .part) and renamed when it is complete, so readers never see a partial export.
+     * <p>
+     * <b>Limitation of incremental exports:</b> The cursor is the hire date and number of the last exported emp, an emp
+     * is only exported if both are after it. Emp numbers are not ascending in insert order: EMP_SEQ hands out blocks
+     * of 50 numbers per node (pooled-lo), so an emp inserted later with the same or an earlier hire date may have a
+     * lower number. Such emps, emps with a hire date before the cursor and changes of already exported emps are
+     * never part of an incremental export. Run a full export (since NULL) regularly if the files must be complete.
+     *
+     * @param file   File to be written, an existing file is replaced
+     * @param format Format of the file
+     * @param gzip   true to compress the file with GZIP
+     * @param since  Cursor of the previous export, NULL to export all emps (including the ones without hire date)
+     * @return The written file, the number of exported emps and the cursor for the next incremental export
+     * @throws UncheckedIOException if the file can't be written
+     */
+    public ExportResult export(Path file, ExportFormat format, boolean gzip, PageToken<Date> since) {
+
+        Path part = file.resolveSibling(file.getFileName() + PART_SUFFIX);
+        long start = System.nanoTime();
+        long count = 0;
+        EmpExportRow lastDated = null;
+        try {
+            try (Stream<EmpExportRow> rows = empDao.streamExportRows(since);
+                 ExportChannel channel = ExportChannel.open(part, gzip)) {
+
+                StringBuilder line = new StringBuilder(LINE_CAPACITY);
+                format.appendHeader(line);
+                channel.write(line);
+
+                Iterator<EmpExportRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    EmpExportRow row = iterator.next();
+                    line.setLength(0);
+                    format.appendRow(line, row);
+                    channel.write(line);
+
+                    count++;
+                    if (null != row.getHiredate()) {
+                        lastDated = row;
+                    }
+                }
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deletePart(part);
+            throw new UncheckedIOException("Export into " + file + " failed", e);
+        } catch (RuntimeException e) {
+            deletePart(part);
+            throw e;
+        }
+
+        // Emps without hire date are sorted first or last, the last emp having one is the cursor in both cases
+        PageToken<Date> cursor = (null != lastDated)
+                ? new PageToken<>(lastDated.getHiredate(), lastDated.getEmpno())
+                : since;
+        BulkResult throughput = new BulkResult(count, System.nanoTime() - start);
+        ExportResult result = new ExportResult(file, sizeOf(file), throughput, cursor);
+
+        logger.info("Exported {} emps into {} ({} bytes): {}", count, file, result.getFileSize(), throughput);
+        return result;
+    }
+
+    private void deletePart(Path part) {
+        try {
+            Files.deleteIfExists(part);
+        } catch (IOException e) {
+            logger.warn("Could not delete partial export " + part, e);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package de.test.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Buffered writer of UTF-8 text on a channel. The characters are encoded directly into a buffer which is written to
+ * the channel when it is full, so an export needs one write call per buffer instead of one per line and no byte array
+ * per line is created.
+ */
+final class ExportChannel implements Closeable {
+
+    /** Size of the buffer, also used as buffer size of the GZIP compression. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    ExportChannel(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the file for writing, an existing file is overwritten.
+     *
+     * @param file File to be written
+     * @param gzip true to compress the written text with GZIP
+     * @return Channel writing into the file
+     * @throws IOException if the file can't be opened
+     */
+    static ExportChannel open(Path file, boolean gzip) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (!gzip) {
+            return new ExportChannel(fileChannel);
+        }
+
+        try {
+            return new ExportChannel(Channels.newChannel(
+                    new GZIPOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE)));
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes the characters into the buffer, writing the buffer to the channel whenever it is full.
+     *
+     * @param chars Characters to be written, e.g. one or more complete lines
+     * @throws IOException if writing to the channel fails
+     */
+    void write(CharSequence chars) throws IOException {
+        CharBuffer input = CharBuffer.wrap(chars);
+        while (encoder.encode(input, buffer, false).isOverflow()) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered characters and closes the channel (which completes the GZIP compression).
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            CharBuffer empty = CharBuffer.allocate(0);
+            while (encoder.encode(empty, buffer, true).isOverflow()) {
+                drain();
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                drain();
+            }
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package de.test.export;
+
+import de.test.dto.EmpExportRow;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * File formats of the export. Every emp is written as one line, so the files can be read line by line (and split)
+ * without parsing them completely. Dates are written as ISO date (yyyy-MM-dd), numbers without exponent.
+ */
+public enum ExportFormat {
+
+    /** Newline delimited JSON, one object per emp. NULL values are written as null. */
+    NDJSON("ndjson") {
+        @Override
+        public void appendHeader(StringBuilder line) {
+            // No header, every line is a complete object
+        }
+
+        @Override
+        public void appendRow(StringBuilder line, EmpExportRow row) {
+            line.append("{\"empno\":").append(row.getEmpno());
+            line.append(",\"ename\":");
+            appendJsonString(line, row.getEname());
+            line.append(",\"job\":");
+            appendJsonString(line, row.getJob());
+            line.append(",\"mgr\":").append(row.getMgr());
+            line.append(",\"hiredate\":");
+            appendJsonString(line, formatDate(row.getHiredate()));
+            line.append(",\"sal\":").append(formatNumber(row.getSal()));
+            line.append(",\"comm\":").append(formatNumber(row.getComm()));
+            line.append(",\"version\":").append(row.getVersion());
+            line.append("}\n");
+        }
+    },
+
+    /**
+     * Comma separated values (RFC 4180) with a header line. NULL values are written as empty fields, line breaks
+     * inside of values as spaces.
+     */
+    CSV("csv") {
+        @Override
+        public void appendHeader(StringBuilder line) {
+            line.append("empno,ename,job,mgr,hiredate,sal,comm,version\n");
+        }
+
+        @Override
+        public void appendRow(StringBuilder line, EmpExportRow row) {
+            line.append(row.getEmpno()).append(',');
+            appendCsvField(line, row.getEname());
+            line.append(',');
+            appendCsvField(line, row.getJob());
+            line.append(',');
+            appendCsvField(line, (null != row.getMgr()) ? row.getMgr().toString() : null);
+            line.append(',');
+            appendCsvField(line, formatDate(row.getHiredate()));
+            line.append(',');
+            appendCsvField(line, formatNumber(row.getSal()));
+            line.append(',');
+            appendCsvField(line, formatNumber(row.getComm()));
+            line.append(',').append(row.getVersion());
+            line.append('\n');
+        }
+    };
+
+    private static final String HEX_DIGITS = "0123456789abcdef";
+
+    private final String fileExtension;
+
+    ExportFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * @return Extension of the files (without dot and without the extension of the compression)
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Appends the lines written before the first emp, e.g. the column names.
+     *
+     * @param line Line the header is appended to, including the line break
+     */
+    public abstract void appendHeader(StringBuilder line);
+
+    /**
+     * Appends the line of the emp.
+     *
+     * @param line Line the emp is appended to, including the line break
+     * @param row  The exported emp
+     */
+    public abstract void appendRow(StringBuilder line, EmpExportRow row);
+
+    /**
+     * The hire date is a date without time, so it is converted in the time zone of the JVM like the JDBC driver did.
+     */
+    private static String formatDate(Date date) {
+        return (null != date)
+                ? Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toString()
+                : null;
+    }
+
+    private static String formatNumber(BigDecimal number) {
+        return (null != number) ? number.toPlainString() : null;
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        if (null == value) {
+            line.append("null");
+            return;
+        }
+
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ('"' == c || '\\' == c) {
+                line.append('\\').append(c);
+            } else if (c < ' ') {
+                line.append("\\u00").append(HEX_DIGITS.charAt(c >> 4)).append(HEX_DIGITS.charAt(c & 0xF));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Fields containing separators or quotes are quoted, quotes inside are doubled. Line breaks are replaced by spaces,
+     * so every emp stays on one line (RFC 4180 allows them in quoted fields, but then the file can't be split).
+     */
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (null == value) {
+            return;
+        }
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = ',' == c || '"' == c;
+        }
+
+        if (quote) {
+            line.append('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ('"' == c) {
+                line.append("\"\"");
+            } else if ('\n' == c || '\r' == c) {
+                line.append(' ');
+            } else {
+                line.append(c);
+            }
+        }
+        if (quote) {
+            line.append('"');
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package de.test.export;
+
+import de.test.genericdao.dao.BulkResult;
+import de.test.genericdao.dao.PageToken;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Result of an export: The written file, the number of exported emps and the throughput, and the cursor to be passed
+ * to the next incremental export.
+ */
+public final class ExportResult {
+
+    private final Path file;
+
+    private final long fileSize;
+
+    private final BulkResult throughput;
+
+    private final PageToken<Date> cursor;
+
+    /**
+     * Creates a new result.
+     *
+     * @param file       The written file
+     * @param fileSize   Size of the written file in bytes
+     * @param throughput Number of exported emps and the elapsed time
+     * @param cursor     Hire date and number of the last exported emp having a hire date, NULL if there is none
+     */
+    public ExportResult(Path file, long fileSize, BulkResult throughput, PageToken<Date> cursor) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.throughput = throughput;
+        this.cursor = cursor;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * @return Number of exported emps, the elapsed time and the exported emps per second
+     */
+    public BulkResult getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * @return Cursor for the next incremental export. Empty if no exported emp had a hire date and no cursor was passed
+     *         to the export. Emps inserted later but sorted before the cursor are missed by the next incremental
+     *         export, see EmpExportService#export.
+     */
+    public Optional<PageToken<Date>> getCursor() {
+        return Optional.ofNullable(cursor);
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult[file=" + file + ", fileSize=" + fileSize + ", " + throughput + ", cursor=" + cursor + "]";
+    }
+
+}
@@ -0,0 +1,165 @@
+package de.test.monitoring;
+
+import de.test.genericdao.metrics.DaoMetrics;
+import de.test.genericdao.metrics.Histogram;
+import de.test.genericdao.metrics.OperationSnapshot;
+import de.test.genericdao.slowquery.SlowQueryLog;
+import de.test.genericdao.slowquery.SlowStatement;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Registers the metrics of the DAOs (see DaoMetrics) and services (see ServiceMetricsInterceptor) and the slow query
+ * log (see SlowQueryLog) as MBean.
+ * Unlike hibernate.generate_statistics, the metrics are cheap enough to stay enabled in production.
+ */
+@Singleton
+@Startup
+public class DaoStatistics implements DaoStatisticsMXBean {
+
+    private static final String OBJECT_NAME = "de.test:type=DaoStatistics";
+
+    @Inject
+    Logger logger;
+
+    private ObjectName objectName;
+
+    @PostConstruct
+    void register() {
+        try {
+            objectName = new ObjectName(OBJECT_NAME);
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not register DAO statistics MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    @PreDestroy
+    void unregister() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (null != objectName && mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not unregister DAO statistics MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public List<OperationSnapshot> getOperations() {
+        List<OperationSnapshot> operations = new ArrayList<>();
+        DaoMetrics.all().forEach(metrics -> operations.addAll(metrics.snapshotOperations()));
+        operations.sort(Comparator.comparing(OperationSnapshot::getName));
+        return operations;
+    }
+
+    @Override
+    public List<OperationSnapshot> getQueries() {
+        List<OperationSnapshot> queries = new ArrayList<>();
+        DaoMetrics.all().forEach(metrics -> queries.addAll(metrics.snapshotQueries()));
+        queries.sort(Comparator.comparingDouble(DaoStatistics::totalMillis).reversed());
+        return queries;
+    }
+
+    @Override
+    public List<OperationSnapshot> getServiceMethods() {
+        List<OperationSnapshot> methods = ServiceMetricsInterceptor.snapshot();
+        methods.sort(Comparator.comparing(OperationSnapshot::getName));
+        return methods;
+    }
+
+    @Override
+    public double getPersistenceContextSizeMean() {
+        long count = 0;
+        long sum = 0;
+        for (DaoMetrics metrics : DaoMetrics.all()) {
+            count += metrics.getPersistenceContextSize().getCount();
+            sum += metrics.getPersistenceContextSize().getSum();
+        }
+        return (count > 0) ? (double) sum / count : 0d;
+    }
+
+    @Override
+    public long getPersistenceContextSizeP99() {
+        return DaoMetrics.all().stream()
+                .map(DaoMetrics::getPersistenceContextSize)
+                .mapToLong(histogram -> histogram.getPercentile(0.99d))
+                .max()
+                .orElse(0L);
+    }
+
+    @Override
+    public long getPersistenceContextSizeMax() {
+        return DaoMetrics.all().stream()
+                .map(DaoMetrics::getPersistenceContextSize)
+                .mapToLong(Histogram::getMax)
+                .max()
+                .orElse(0L);
+    }
+
+    @Override
+    public long getOptimisticLockConflicts() {
+        return DaoMetrics.all().stream()
+                .mapToLong(DaoMetrics::getOptimisticLockConflicts)
+                .sum();
+    }
+
+    @Override
+    public List<SlowStatement> getSlowStatements() {
+        List<SlowStatement> statements = new ArrayList<>();
+        SlowQueryLog.all().forEach(log -> statements.addAll(log.getStatements()));
+        statements.sort(Comparator.comparingDouble(SlowStatement::getTotalMillis).reversed());
+        return statements;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return SlowQueryLog.all().stream()
+                .mapToLong(SlowQueryLog::getThresholdMillis)
+                .max()
+                .orElse(-1L);
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long thresholdMillis) {
+        SlowQueryLog.all().forEach(log -> log.setThresholdMillis(thresholdMillis));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return DaoMetrics.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        DaoMetrics.setEnabled(enabled);
+    }
+
+    @Override
+    public void reset() {
+        DaoMetrics.all().forEach(DaoMetrics::reset);
+        ServiceMetricsInterceptor.reset();
+        SlowQueryLog.all().forEach(SlowQueryLog::reset);
+    }
+
+    private static double totalMillis(OperationSnapshot snapshot) {
+        return snapshot.getCount() * snapshot.getMeanMillis();
+    }
+
+}
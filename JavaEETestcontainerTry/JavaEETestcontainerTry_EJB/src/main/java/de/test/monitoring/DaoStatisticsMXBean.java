@@ -0,0 +1,83 @@
+package de.test.monitoring;
+
+import de.test.genericdao.metrics.OperationSnapshot;
+import de.test.genericdao.slowquery.SlowStatement;
+
+import java.util.List;
+
+/**
+ * JMX view of the metrics of the DAOs and services: latency (in milliseconds, percentiles approximated), failures and
+ * rows per operation and per query, and the statements of the slow query log.
+ */
+public interface DaoStatisticsMXBean {
+
+    /**
+     * @return Statistics per DAO operation (e.g. Emp.FIND), sorted by name
+     */
+    List<OperationSnapshot> getOperations();
+
+    /**
+     * @return Statistics per query (JPQL), sorted by the total time spent in the query, longest first
+     */
+    List<OperationSnapshot> getQueries();
+
+    /**
+     * @return Statistics per service method (e.g. EmpService.findByName), sorted by name
+     */
+    List<OperationSnapshot> getServiceMethods();
+
+    /**
+     * @return Mean number of entities in the persistence context after a DAO operation
+     */
+    double getPersistenceContextSizeMean();
+
+    /**
+     * @return 99th percentile (approximated) of the number of entities in the persistence context after a DAO operation
+     */
+    long getPersistenceContextSizeP99();
+
+    /**
+     * @return Largest number of entities in the persistence context after a DAO operation
+     */
+    long getPersistenceContextSizeMax();
+
+    /**
+     * @return Number of conflicts of optimistic updates of all DAOs, including the ones which succeeded after a retry
+     */
+    long getOptimisticLockConflicts();
+
+    /**
+     * @return Slow statements of all persistence units (see SlowQueryLog), sorted by their total time, longest first
+     */
+    List<SlowStatement> getSlowStatements();
+
+    /**
+     * @return Threshold of the slow query log in milliseconds, negative if it is disabled or no query was executed yet
+     */
+    long getSlowQueryThresholdMillis();
+
+    /**
+     * Changes the threshold of the slow query log of all persistence units, e.g. to find the slowest queries of a test.
+     *
+     * @param thresholdMillis Threshold in milliseconds, negative values disable the slow query log
+     */
+    void setSlowQueryThresholdMillis(long thresholdMillis);
+
+    /**
+     * @return true if the metrics are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables or disables the recording of the metrics, e.g. to measure their overhead.
+     *
+     * @param enabled true to record the metrics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Removes all recorded values, including the slow statements.
+     */
+    void reset();
+
+}
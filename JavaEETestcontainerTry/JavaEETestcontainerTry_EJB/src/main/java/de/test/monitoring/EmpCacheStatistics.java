@@ -0,0 +1,187 @@
+package de.test.monitoring;
+
+import de.test.entities.Emp;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Registers the cache statistics of the Emp entity as MBean, so the cache can be tuned in production.
+ * The statistics are read from Hibernate, therefore hibernate.generate_statistics must be enabled. The evictions are
+ * read from the Infinispan cache of the region, therefore statistics-enabled must be set on the caches of the
+ * "hibernate" cache container (standalone.xml).
+ */
+@Singleton
+@Startup
+public class EmpCacheStatistics implements EmpCacheStatisticsMXBean {
+
+    private static final String OBJECT_NAME = "de.test:type=CacheStatistics,name=Emp";
+
+    /** Path from the entity persister to the statistics of its Infinispan cache (org.infinispan.stats.Stats). */
+    private static final String[] CACHE_STATISTICS_PATH =
+            {"getCacheAccessStrategy", "getRegion", "getCache", "getStats"};
+
+    /** Returned if a statistic of the Infinispan cache is not available. */
+    private static final long NOT_AVAILABLE = -1L;
+
+    @PersistenceUnit(unitName = "ReadingDS")
+    EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    Logger logger;
+
+    private ObjectName objectName;
+
+    @PostConstruct
+    void register() {
+        try {
+            objectName = new ObjectName(OBJECT_NAME);
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not register cache statistics MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    @PreDestroy
+    void unregister() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (null != objectName && mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not unregister cache statistics MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public long getEntityHitCount() {
+        return getEntityRegionStatistics().map(SecondLevelCacheStatistics::getHitCount).orElse(0L);
+    }
+
+    @Override
+    public long getEntityMissCount() {
+        return getEntityRegionStatistics().map(SecondLevelCacheStatistics::getMissCount).orElse(0L);
+    }
+
+    @Override
+    public long getEntityPutCount() {
+        return getEntityRegionStatistics().map(SecondLevelCacheStatistics::getPutCount).orElse(0L);
+    }
+
+    @Override
+    public long getEntityElementCountInMemory() {
+        return getEntityRegionStatistics().map(SecondLevelCacheStatistics::getElementCountInMemory).orElse(0L);
+    }
+
+    @Override
+    public long getEntityEvictionCount() {
+        return getEntityCacheStatistic("getEvictions");
+    }
+
+    @Override
+    public double getEntityHitRatio() {
+        return ratio(getEntityHitCount(), getEntityMissCount());
+    }
+
+    @Override
+    public long getQueryCacheHitCount() {
+        return getStatistics().getQueryCacheHitCount();
+    }
+
+    @Override
+    public long getQueryCacheMissCount() {
+        return getStatistics().getQueryCacheMissCount();
+    }
+
+    @Override
+    public long getQueryCachePutCount() {
+        return getStatistics().getQueryCachePutCount();
+    }
+
+    @Override
+    public double getQueryCacheHitRatio() {
+        return ratio(getQueryCacheHitCount(), getQueryCacheMissCount());
+    }
+
+    @Override
+    public void clear() {
+        getStatistics().clear();
+    }
+
+    private Statistics getStatistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * The region name contains a prefix defined by the application server, so the region is searched by the entity
+     * name.
+     */
+    private Optional<SecondLevelCacheStatistics> getEntityRegionStatistics() {
+        Statistics statistics = getStatistics();
+
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .filter(regionName -> regionName.endsWith(Emp.class.getName()))
+                .findFirst()
+                .map(statistics::getSecondLevelCacheStatistics);
+    }
+
+    /**
+     * Reads a statistic of the Infinispan cache of the entity region, which is not part of the Hibernate statistics.
+     * Infinispan is provided by the application server and the region classes changed with Hibernate 5.3, so they are
+     * called by reflection.
+     *
+     * @param getter Getter of the statistic in org.infinispan.stats.Stats
+     * @return Value of the statistic, NOT_AVAILABLE if the region is not cached by Infinispan
+     */
+    private long getEntityCacheStatistic(String getter) {
+        try {
+            Object value = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMetamodel()
+                    .entityPersister(Emp.class);
+            for (String method : CACHE_STATISTICS_PATH) {
+                value = invoke(value, method);
+            }
+            value = invoke(value, getter);
+            return (value instanceof Number) ? ((Number) value).longValue() : NOT_AVAILABLE;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Could not read " + getter + " of the cache of the Emp region", e);
+            return NOT_AVAILABLE;
+        }
+    }
+
+    private static Object invoke(Object target, String methodName) throws ReflectiveOperationException {
+        if (null == target) {
+            throw new NoSuchMethodException(methodName + " of null");
+        }
+        Method method = target.getClass().getMethod(methodName);
+        // The implementing classes are not necessarily public
+        method.setAccessible(true);
+        return method.invoke(target);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long lookups = hits + misses;
+        return (lookups > 0) ? (double) hits / lookups : 0d;
+    }
+
+}
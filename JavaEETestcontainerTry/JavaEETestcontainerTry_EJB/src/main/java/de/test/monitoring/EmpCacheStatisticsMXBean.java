@@ -0,0 +1,64 @@
+package de.test.monitoring;
+
+/**
+ * JMX view of the second level and query cache statistics of the Emp entity.
+ */
+public interface EmpCacheStatisticsMXBean {
+
+    /**
+     * @return Number of Emp lookups which were answered by the second level cache
+     */
+    long getEntityHitCount();
+
+    /**
+     * @return Number of Emp lookups which missed the second level cache
+     */
+    long getEntityMissCount();
+
+    /**
+     * @return Number of Emps put into the second level cache
+     */
+    long getEntityPutCount();
+
+    /**
+     * @return Number of Emps currently held in memory by the second level cache
+     */
+    long getEntityElementCountInMemory();
+
+    /**
+     * @return Number of Emps evicted from the second level cache because of its size limit (object-memory size of the
+     * Infinispan cache), -1 if the statistics of the cache are not enabled or not available. Not reset by clear().
+     */
+    long getEntityEvictionCount();
+
+    /**
+     * @return Ratio of hits to all lookups of the entity cache, between 0 and 1
+     */
+    double getEntityHitRatio();
+
+    /**
+     * @return Number of query executions answered by the query cache
+     */
+    long getQueryCacheHitCount();
+
+    /**
+     * @return Number of query executions which missed the query cache
+     */
+    long getQueryCacheMissCount();
+
+    /**
+     * @return Number of query results put into the query cache
+     */
+    long getQueryCachePutCount();
+
+    /**
+     * @return Ratio of hits to all lookups of the query cache, between 0 and 1
+     */
+    double getQueryCacheHitRatio();
+
+    /**
+     * Resets all statistics of the persistence unit.
+     */
+    void clear();
+
+}
@@ -0,0 +1,79 @@
+package de.test.monitoring;
+
+import de.test.genericdao.metrics.DaoMetrics;
+import de.test.genericdao.metrics.OperationSnapshot;
+import de.test.genericdao.metrics.OperationStats;
+
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.InvocationContext;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Measures latency, failures and number of returned elements of the business methods of a service (see EmpService).
+ * Like the DAO metrics, the measurement allocates no objects and can be disabled with DaoMetrics#setEnabled.
+ */
+public class ServiceMetricsInterceptor {
+
+    private static final ConcurrentMap<Method, OperationStats> METHODS = new ConcurrentHashMap<>();
+
+    @AroundInvoke
+    public Object measure(InvocationContext context) throws Exception {
+
+        if (!DaoMetrics.isEnabled()) {
+            return context.proceed();
+        }
+
+        OperationStats stats = getStats(context.getMethod());
+        long start = System.nanoTime();
+        try {
+            Object result = context.proceed();
+            stats.record(System.nanoTime() - start, countElements(result));
+            return result;
+        } catch (Exception e) {
+            stats.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private static OperationStats getStats(Method method) {
+        OperationStats stats = METHODS.get(method);
+        return (null != stats) ? stats : METHODS.computeIfAbsent(method, m -> new OperationStats());
+    }
+
+    /**
+     * Collections count with their size, Optionals with one if present, other results with zero.
+     */
+    private static long countElements(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * @return Snapshots of all called methods, named by the simple class name and the method name
+     */
+    static List<OperationSnapshot> snapshot() {
+        List<OperationSnapshot> snapshots = new ArrayList<>(METHODS.size());
+        METHODS.forEach((method, stats) -> snapshots.add(
+                stats.snapshot(method.getDeclaringClass().getSimpleName() + "." + method.getName())));
+        return snapshots;
+    }
+
+    /**
+     * Removes the statistics of all methods.
+     */
+    static void reset() {
+        METHODS.clear();
+    }
+
+}
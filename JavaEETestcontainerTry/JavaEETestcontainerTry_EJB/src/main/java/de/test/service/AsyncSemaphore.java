@@ -0,0 +1,163 @@
+package de.test.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Semaphore for asynchronous tasks. Tasks exceeding the number of permits wait in a queue without occupying a thread,
+ * a waiting caller costs one queue entry instead of a blocked thread. The permit of a task is released when the task
+ * finished, then the next waiting task is started. This can be later than the completion of its result: a cancelled
+ * task may still run (e.g. in a JDBC call ignoring the interrupt) and use its connection.
+ */
+final class AsyncSemaphore {
+
+    private final int maxWaiting;
+
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+
+    private int available;
+
+    /**
+     * Creates a new semaphore.
+     *
+     * @param permits    Maximum number of running tasks
+     * @param maxWaiting Maximum number of waiting tasks, further tasks are rejected
+     */
+    AsyncSemaphore(int permits, int maxWaiting) {
+        if (permits < 1 || maxWaiting < 0) {
+            throw new IllegalArgumentException("permits must be positive and maxWaiting must not be negative");
+        }
+        this.available = permits;
+        this.maxWaiting = maxWaiting;
+    }
+
+    /**
+     * Starts the task as soon as a permit is available.
+     * If the returned future is completed before the task was started (e.g. by a timeout), the task is skipped. If it
+     * is completed while the task is running, the result of the task is cancelled.
+     *
+     * @param task Task starting the asynchronous work
+     * @param <R>  Type of the result
+     * @return Future of the result. Completes with a RejectedExecutionException if too many tasks are waiting.
+     */
+    <R> CompletableFuture<R> submit(Supplier<Task<R>> task) {
+
+        CompletableFuture<R> result = new CompletableFuture<>();
+
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+            } else if (waiting.size() < maxWaiting) {
+                waiting.add(new Waiter(result, () -> start(task, result)));
+                return result;
+            } else {
+                result.completeExceptionally(new RejectedExecutionException(
+                        "Too many waiting tasks, limit is " + maxWaiting));
+                return result;
+            }
+        }
+
+        start(task, result);
+        return result;
+    }
+
+    /**
+     * @return Number of available permits
+     */
+    synchronized int getAvailablePermits() {
+        return available;
+    }
+
+    /**
+     * @return Number of waiting tasks, including tasks whose future was already completed
+     */
+    synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    private <R> void start(Supplier<Task<R>> task, CompletableFuture<R> result) {
+
+        Task<R> started;
+        try {
+            started = task.get();
+        } catch (Throwable e) {
+            // Errors too, otherwise the permit would never be released
+            CompletableFuture<R> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            started = Task.of(failed);
+        }
+
+        started.finished.whenComplete((value, failure) -> release());
+        started.result.whenComplete((value, failure) -> {
+            if (null != failure) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        });
+        CompletableFuture<R> startedResult = started.result;
+        result.whenComplete((value, failure) -> startedResult.cancel(true));
+    }
+
+    private void release() {
+
+        Waiter next;
+        synchronized (this) {
+            do {
+                next = waiting.poll();
+            } while (null != next && next.result.isDone());
+
+            if (null == next) {
+                available++;
+                return;
+            }
+        }
+        next.start.run();
+    }
+
+    /**
+     * Started asynchronous work.
+     *
+     * @param <R> Type of the result
+     */
+    static final class Task<R> {
+
+        private final CompletableFuture<R> result;
+
+        private final CompletableFuture<?> finished;
+
+        /**
+         * @param result   Result of the work, cancelling it must stop the work
+         * @param finished Completes when the work finished, also if it was cancelled
+         */
+        Task(CompletableFuture<R> result, CompletableFuture<?> finished) {
+            this.result = result;
+            this.finished = finished;
+        }
+
+        /**
+         * @param result Result of work, which finished when its result is completed
+         * @param <R>    Type of the result
+         * @return The task
+         */
+        static <R> Task<R> of(CompletableFuture<R> result) {
+            return new Task<>(result, result);
+        }
+    }
+
+    private static final class Waiter {
+
+        private final CompletableFuture<?> result;
+
+        private final Runnable start;
+
+        private Waiter(CompletableFuture<?> result, Runnable start) {
+            this.result = result;
+            this.start = start;
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package de.test.service;
+
+import de.test.dto.EmpSummary;
+import de.test.entities.Emp;
+
+import javax.annotation.Resource;
+import javax.ejb.EJB;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Asynchronous facade of the EmpService, e.g. for dashboards which need several independent reads in parallel.
+ * <p>
+ * At most MAX_CONCURRENT_CALLS calls run at the same time, matching the size of the connection pool of the
+ * datasource (max-pool-size in standalone.xml). Further calls wait in a queue without occupying a thread, so many
+ * concurrent callers don't pile up threads waiting for a connection. If MAX_WAITING_CALLS calls are waiting, further
+ * calls fail with a RejectedExecutionException instead of blocking the caller. A timed out call keeps its slot until
+ * it returned, because it still uses its connection.
+ * The running calls are executed by the managed executor "emp" (see standalone.xml).
+ * <p>
+ * The security context of the caller is propagated by the executor. A transaction can't be propagated to another
+ * thread, so every call runs in its own transaction of the EmpService and returns detached emps.
+ */
+@ApplicationScoped
+public class EmpAsyncService {
+
+    /** Timeout of the calls without timeout parameter. */
+    public static final long DEFAULT_TIMEOUT_SECONDS = 30;
+
+    /** Maximum number of running calls, must not exceed the max-pool-size of the datasource. */
+    static final int MAX_CONCURRENT_CALLS = 5;
+
+    /** Maximum number of calls waiting for one of the running calls to finish. */
+    static final int MAX_WAITING_CALLS = 10_000;
+
+    private final AsyncSemaphore dbAccess = new AsyncSemaphore(MAX_CONCURRENT_CALLS, MAX_WAITING_CALLS);
+
+    @Resource(lookup = "java:jboss/ee/concurrency/executor/emp")
+    ManagedExecutorService executor;
+
+    @Resource(lookup = "java:jboss/ee/concurrency/scheduler/default")
+    ManagedScheduledExecutorService scheduler;
+
+    @EJB
+    EmpService empService;
+
+    public CompletableFuture<List<Emp>> getAllEmps() {
+        return supplyAsync(EmpService::getAllEmps);
+    }
+
+    public CompletableFuture<List<Emp>> getAllEmpsWithManager() {
+        return supplyAsync(EmpService::getAllEmpsWithManager);
+    }
+
+    public CompletableFuture<List<EmpSummary>> listEmpSummaries() {
+        return supplyAsync(EmpService::listEmpSummaries);
+    }
+
+    public CompletableFuture<Optional<Emp>> findByName(String name) {
+        return supplyAsync(service -> service.findByName(name));
+    }
+
+    public CompletableFuture<Long> countEmps() {
+        return supplyAsync(EmpService::countEmps);
+    }
+
+    /**
+     * Executes a call of the EmpService asynchronously, using the default timeout.
+     *
+     * @param call Call of the EmpService
+     * @param <R>  Type of the result
+     * @return Future of the result
+     * @see #supplyAsync(Function, long, TimeUnit)
+     */
+    public <R> CompletableFuture<R> supplyAsync(Function<EmpService, R> call) {
+        return supplyAsync(call, DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Executes a call of the EmpService asynchronously in its own transaction.
+     * If the call does not finish in time, it is interrupted (or never started, if it was still waiting) and the future
+     * completes with a TimeoutException.
+     * If too many calls are waiting, the future completes with a RejectedExecutionException.
+     *
+     * @param call    Call of the EmpService
+     * @param timeout Maximum duration of the call, including the time waiting for a free slot
+     * @param unit    Unit of the timeout
+     * @param <R>     Type of the result
+     * @return Future of the result
+     */
+    public <R> CompletableFuture<R> supplyAsync(Function<EmpService, R> call, long timeout, TimeUnit unit) {
+
+        CompletableFuture<R> result = dbAccess.submit(() -> runOnExecutor(call));
+
+        ScheduledFuture<?> timer = scheduler.schedule(() -> result.completeExceptionally(
+                new TimeoutException("EmpService call timed out after " + timeout + " " + unit)), timeout, unit);
+        result.whenComplete((value, failure) -> timer.cancel(false));
+
+        return result;
+    }
+
+    /**
+     * Runs the call on the managed executor. The result always completes with the result or the failure of the call.
+     * Cancelling the result interrupts the call, the task only finishes when the call returned (or was never started).
+     */
+    private <R> AsyncSemaphore.Task<R> runOnExecutor(Function<EmpService, R> call) {
+
+        CompletableFuture<R> running = new CompletableFuture<>();
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        // Claimed either by the executor starting the call or by a cancellation before the start
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> task = executor.submit(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                running.complete(call.apply(empService));
+            } catch (Throwable e) {
+                // Errors too, the executor would keep them in its own future and the caller would wait for the timeout
+                running.completeExceptionally(e);
+            } finally {
+                finished.complete(null);
+            }
+        });
+        running.whenComplete((value, failure) -> {
+            if (running.isCancelled()) {
+                if (claimed.compareAndSet(false, true)) {
+                    finished.complete(null);
+                }
+                task.cancel(true);
+            }
+        });
+
+        return new AsyncSemaphore.Task<>(running, finished);
+    }
+
+}
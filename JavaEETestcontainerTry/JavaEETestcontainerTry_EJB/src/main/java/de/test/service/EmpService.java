@@ -1,16 +1,39 @@
 package de.test.service;
 
 import de.test.dao.IEmpDao;
+import de.test.dto.EmpSummary;
+import de.test.dto.ManagerHeadcount;
+import de.test.dto.OrgChartEntry;
+import de.test.dto.PayrollGrouping;
+import de.test.dto.PayrollStatistics;
 import de.test.entities.Emp;
+import de.test.entities.Emp_;
+import de.test.genericdao.dao.KeysetPage;
+import de.test.genericdao.dao.PageToken;
+import de.test.monitoring.ServiceMetricsInterceptor;
 
 import javax.ejb.LocalBean;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
+import javax.interceptor.Interceptors;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Service for emps. Reading methods load the emps read-only (see IGenericDao#readOnly), so no snapshots for the dirty
+ * checking are kept and no flush happens before the queries. Changes of the returned emps must be saved using the
+ * DAO update methods in another transaction.
+ * Latency and result sizes of all methods are measured, see DaoStatistics.
+ */
 @Stateless
 @LocalBean
+@Interceptors(ServiceMetricsInterceptor.class)
 public class EmpService {
 
     @Inject
@@ -21,11 +44,150 @@ public class EmpService {
     }
 
     public List<Emp> getAllEmps() {
-        return empDao.getAllEmps();
+        return empDao.readOnly(empDao::getAllEmps);
+    }
+
+    /**
+     * Reads all emps with their managers in one statement, e.g. for list views showing the manager.
+     *
+     * @return All emps with initialized managers
+     */
+    public List<Emp> getAllEmpsWithManager() {
+        return empDao.readOnly(empDao::getAllEmpsWithManager);
+    }
+
+    /**
+     * Reads number, name and job of all emps without loading the entities into the persistence context.
+     *
+     * @return Summaries of all emps, ordered by their number
+     */
+    public List<EmpSummary> listEmpSummaries() {
+        return empDao.findAllAs(EmpSummary.class, Arrays.asList(Emp_.empno, Emp_.ename, Emp_.job));
     }
 
     public Optional<Emp> findByName(String name) {
-        return empDao.findByName(name);
+        return empDao.readOnly(() -> empDao.findByName(name));
+    }
+
+    /**
+     * Reads the emps with the given numbers, e.g. from an upstream message, with one statement per 1000 numbers.
+     *
+     * @param empnos Numbers of the emps
+     * @return Found emps in the order of the numbers, numbers without emp are skipped
+     */
+    public List<Emp> findByEmpnos(Collection<Long> empnos) {
+        return empDao.readOnly(() -> empDao.findAllById(empnos));
+    }
+
+    /**
+     * Reads the org chart below an emp with one statement, instead of walking the lazy associations level by level.
+     *
+     * @param empno Number of the emp to start with
+     * @return The emp and all emps below it, depth first. Empty if there is no emp with the number.
+     */
+    public List<OrgChartEntry> getOrgChart(long empno) {
+        return empDao.findSubtree(empno);
+    }
+
+    /**
+     * Reads the managers of an emp up to the top of the hierarchy with one statement.
+     *
+     * @param empno Number of the emp to start with
+     * @return The emp and all its managers. Empty if there is no emp with the number.
+     */
+    public List<OrgChartEntry> getManagerChain(long empno) {
+        return empDao.findManagerChain(empno);
+    }
+
+    /**
+     * Reads the team size of every manager with one statement.
+     *
+     * @return Direct reports, headcount and depth per manager, ordered by the number of the manager
+     */
+    public List<ManagerHeadcount> getManagerHeadcounts() {
+        return empDao.findManagerHeadcounts();
+    }
+
+    /**
+     * Aggregates headcount, salaries and commissions per group in the database, so reports don't need to load all emps.
+     *
+     * @param grouping Grouping of the emps
+     * @return Statistics per group ordered by the key, followed by the total of all emps
+     */
+    public List<PayrollStatistics> getPayrollStatistics(PayrollGrouping grouping) {
+        return empDao.findPayrollStatistics(grouping);
+    }
+
+    /**
+     * Reads a page of emps sorted by their number.
+     *
+     * @param lastSeen Token of the previous page, null for the first page
+     * @param pageSize Maximum number of emps of the page
+     * @return Page of emps with the token for the next page
+     */
+    public KeysetPage<Emp, Long> getEmpPageByNumber(PageToken<Long> lastSeen, int pageSize) {
+        return empDao.readOnly(() -> empDao.findPage(Emp_.empno, lastSeen, pageSize));
+    }
+
+    /**
+     * Reads a page of emps sorted by their name (and number for equal names).
+     *
+     * @param lastSeen Token of the previous page, null for the first page
+     * @param pageSize Maximum number of emps of the page
+     * @return Page of emps with the token for the next page
+     */
+    public KeysetPage<Emp, String> getEmpPageByName(PageToken<String> lastSeen, int pageSize) {
+        return empDao.readOnly(() -> empDao.findPage(Emp_.ename, lastSeen, pageSize));
+    }
+
+    /**
+     * Passes all stored emps to the consumer, one at a time, without loading the whole table into the heap.
+     * The emps are detached, lazy associations can't be loaded.
+     *
+     * @param consumer Consumer which is called for every emp
+     * @return Number of processed emps
+     */
+    public long forEachEmp(Consumer<Emp> consumer) {
+        long count = 0;
+        try (Stream<Emp> emps = empDao.streamAll()) {
+            Iterator<Emp> iterator = emps.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Initializes the queries of the DAO (see IEmpDao#warmUp), reading at most one emp per query.
+     *
+     * @return Number of executed queries
+     */
+    public int warmUpQueries() {
+        return empDao.readOnly(empDao::warmUp);
+    }
+
+    /**
+     * Counts the stored emps in the database (SELECT COUNT), no emp is loaded.
+     *
+     * @return Number of stored emps
+     */
+    public long countEmps() {
+        return empDao.count();
+    }
+
+    /**
+     * Adds the amount to the salary of the emp. Concurrent changes of the same emp are detected by its version and the
+     * raise is retried with the new salary (see IGenericDao#updateWithRetry), no row lock is held while reading.
+     *
+     * @param empno  Number of the emp
+     * @param amount Amount to be added, negative to lower the salary. A missing salary is treated as zero.
+     * @return The emp with the new salary, empty if there is no emp with the number
+     */
+    public Optional<Emp> raiseSalary(long empno, BigDecimal amount) {
+        return empDao.updateWithRetry(empno,
+                emp -> emp.setSal((null != emp.getSal()) ? emp.getSal().add(amount) : amount));
     }
 
 }
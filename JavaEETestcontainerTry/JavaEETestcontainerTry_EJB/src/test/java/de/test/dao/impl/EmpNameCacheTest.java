@@ -0,0 +1,113 @@
+package de.test.dao.impl;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class EmpNameCacheTest {
+
+    private final FakeRegistry registry = new FakeRegistry();
+
+    private final EmpNameCache sut = new EmpNameCache();
+
+    {
+        sut.registry = registry;
+    }
+
+    @Test
+    public void NegativeLookupDuringUncommittedCreateDoesNotSurviveTheCommit() {
+        registry.begin();
+        // The created Emp is not visible yet (not flushed or read by another transaction)
+        sut.invalidate("NEW");
+        Assertions.assertThat(sut.getEmpno("NEW", name -> Optional.empty())).isEmpty();
+        Assertions.assertThat(sut.getEmpno("NEW", name -> Optional.of(1L))).isEmpty();
+        registry.complete(Status.STATUS_COMMITTED);
+
+        Assertions.assertThat(sut.getEmpno("NEW", name -> Optional.of(1L))).contains(1L);
+    }
+
+    @Test
+    public void BulkChangeInvalidatesAllNamesAfterTheCommit() {
+        registry.begin();
+        sut.invalidateAll();
+        sut.getEmpno("A", name -> Optional.empty());
+        sut.getEmpno("B", name -> Optional.of(2L));
+        registry.complete(Status.STATUS_ROLLEDBACK);
+
+        Assertions.assertThat(sut.getCache().size()).isZero();
+    }
+
+    @Test
+    public void InvalidatesImmediatelyWithoutTransaction() {
+        sut.getEmpno("A", name -> Optional.empty());
+        sut.invalidate("A");
+
+        Assertions.assertThat(sut.getEmpno("A", name -> Optional.of(1L))).contains(1L);
+        Assertions.assertThat(registry.synchronizations).isEmpty();
+    }
+
+    private static final class FakeRegistry implements TransactionSynchronizationRegistry {
+
+        private int status = Status.STATUS_NO_TRANSACTION;
+
+        private final Map<Object, Object> resources = new HashMap<>();
+
+        private final List<Synchronization> synchronizations = new ArrayList<>();
+
+        void begin() {
+            status = Status.STATUS_ACTIVE;
+        }
+
+        void complete(int completionStatus) {
+            status = completionStatus;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(completionStatus));
+            synchronizations.clear();
+            resources.clear();
+            status = Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public Object getTransactionKey() {
+            return (Status.STATUS_NO_TRANSACTION == status) ? null : this;
+        }
+
+        @Override
+        public void putResource(Object key, Object value) {
+            resources.put(key, value);
+        }
+
+        @Override
+        public Object getResource(Object key) {
+            return resources.get(key);
+        }
+
+        @Override
+        public void registerInterposedSynchronization(Synchronization sync) {
+            synchronizations.add(sync);
+        }
+
+        @Override
+        public int getTransactionStatus() {
+            return status;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return Status.STATUS_MARKED_ROLLBACK == status;
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package de.test.dao.impl;
+
+import de.test.dto.ManagerHeadcount;
+import de.test.dto.OrgChartEntry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class OrgChartTest {
+
+    // Part of the emps of the test data, deliberately not sorted
+    private final OrgChart sut = new OrgChart(Arrays.asList(
+            emp(7369, "SMITH", 7902L), emp(7566, "JONES", 7839L), emp(7839, "KING", null),
+            emp(7788, "SCOTT", 7566L), emp(7698, "BLAKE", 7839L), emp(7499, "ALLEN", 7698L),
+            emp(7902, "FORD", 7566L), emp(7782, "CLARK", 7839L), emp(7934, "MILLER", 7782L)));
+
+    @Test
+    public void SubtreeIsDepthFirstWithSiblingsSortedByName() {
+        Assertions.assertThat(sut.subtree(7839)).containsExactly(
+                entry(7839, "KING", null, 0),
+                entry(7698, "BLAKE", 7839L, 1), entry(7499, "ALLEN", 7698L, 2),
+                entry(7782, "CLARK", 7839L, 1), entry(7934, "MILLER", 7782L, 2),
+                entry(7566, "JONES", 7839L, 1), entry(7902, "FORD", 7566L, 2), entry(7369, "SMITH", 7902L, 3),
+                entry(7788, "SCOTT", 7566L, 2));
+    }
+
+    @Test
+    public void SubtreeOfLeafAndUnknownEmp() {
+        Assertions.assertThat(sut.subtree(7369)).containsExactly(entry(7369, "SMITH", 7902L, 0));
+        Assertions.assertThat(sut.subtree(1)).isEmpty();
+    }
+
+    @Test
+    public void ManagerChainEndsAtTheTop() {
+        Assertions.assertThat(sut.managerChain(7369)).containsExactly(
+                entry(7369, "SMITH", 7902L, 0), entry(7902, "FORD", 7566L, 1), entry(7566, "JONES", 7839L, 2),
+                entry(7839, "KING", null, 3));
+        Assertions.assertThat(sut.managerChain(1)).isEmpty();
+    }
+
+    @Test
+    public void HeadcountsOfManagersOrderedByNumber() {
+        Assertions.assertThat(sut.headcounts()).containsExactly(
+                new ManagerHeadcount(7566, "JONES", 2, 3, 2),
+                new ManagerHeadcount(7698, "BLAKE", 1, 1, 1),
+                new ManagerHeadcount(7782, "CLARK", 1, 1, 1),
+                new ManagerHeadcount(7839, "KING", 3, 8, 3),
+                new ManagerHeadcount(7902, "FORD", 1, 1, 1));
+    }
+
+    @Test
+    public void CyclesAreIgnored() {
+        OrgChart cyclic = new OrgChart(Arrays.asList(emp(1, "A", 2L), emp(2, "B", 1L), emp(3, "SELF", 3L)));
+
+        Assertions.assertThat(cyclic.subtree(1)).containsExactly(entry(1, "A", 2L, 0), entry(2, "B", 1L, 1));
+        Assertions.assertThat(cyclic.managerChain(1)).containsExactly(entry(1, "A", 2L, 0), entry(2, "B", 1L, 1));
+        Assertions.assertThat(cyclic.subtree(3)).containsExactly(entry(3, "SELF", 3L, 0));
+        Assertions.assertThat(cyclic.managerChain(3)).containsExactly(entry(3, "SELF", 3L, 0));
+        // The emp managing itself has no other report, so it is no manager
+        Assertions.assertThat(cyclic.headcounts()).containsExactly(
+                new ManagerHeadcount(1, "A", 1, 1, 1),
+                new ManagerHeadcount(2, "B", 1, 1, 1));
+    }
+
+    private static OrgChartEntry emp(long empno, String ename, Long mgr) {
+        // The depth of the input rows is ignored
+        return entry(empno, ename, mgr, -1);
+    }
+
+    private static OrgChartEntry entry(long empno, String ename, Long mgr, int depth) {
+        return new OrgChartEntry(empno, ename, "JOB", mgr, depth);
+    }
+
+}
@@ -0,0 +1,51 @@
+package de.test.dto;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+public class PayrollStatisticsTest {
+
+    private static final PayrollAmounts NO_AMOUNTS = new PayrollAmounts(0, null, null, null);
+
+    @Test
+    public void AverageIsRoundedToTwoDigits() {
+        PayrollAmounts amounts = new PayrollAmounts(3, new BigDecimal("1000"), new BigDecimal("100"),
+                new BigDecimal("500"));
+
+        Assertions.assertThat(amounts.getAverage()).isEqualByComparingTo("333.33");
+        Assertions.assertThat(NO_AMOUNTS.getAverage()).isNull();
+    }
+
+    @Test
+    public void CombinedAmountsIgnoreGroupsWithoutAmounts() {
+        PayrollAmounts amounts = new PayrollAmounts(2, new BigDecimal("3000"), new BigDecimal("1000"),
+                new BigDecimal("2000"));
+
+        Assertions.assertThat(NO_AMOUNTS.combine(amounts)).isEqualTo(amounts);
+        Assertions.assertThat(amounts.combine(new PayrollAmounts(1, new BigDecimal("800.00"), new BigDecimal("800.00"),
+                new BigDecimal("800.00"))))
+                .isEqualTo(new PayrollAmounts(3, new BigDecimal("3800"), new BigDecimal("800"), new BigDecimal("2000")));
+    }
+
+    @Test
+    public void TotalIsCombinedFromTheGroups() {
+        PayrollStatistics clerks = new PayrollStatistics(PayrollGrouping.JOB, "CLERK", false, 2,
+                new PayrollAmounts(2, new BigDecimal("2000"), new BigDecimal("900"), new BigDecimal("1100")),
+                NO_AMOUNTS);
+        PayrollStatistics salesmen = new PayrollStatistics(PayrollGrouping.JOB, "SALESMAN", false, 1,
+                new PayrollAmounts(1, new BigDecimal("1600"), new BigDecimal("1600"), new BigDecimal("1600")),
+                new PayrollAmounts(1, new BigDecimal("300"), new BigDecimal("300"), new BigDecimal("300")));
+
+        PayrollStatistics total = clerks.combine(salesmen);
+
+        Assertions.assertThat(total.isTotal()).isTrue();
+        Assertions.assertThat(total.getKey()).isNull();
+        Assertions.assertThat(total.getHeadcount()).isEqualTo(3);
+        Assertions.assertThat(total.getSalary().getSum()).isEqualByComparingTo("3600");
+        Assertions.assertThat(total.getSalary().getAverage()).isEqualByComparingTo("1200");
+        Assertions.assertThat(total.getCommission().getCount()).isEqualTo(1);
+    }
+
+}
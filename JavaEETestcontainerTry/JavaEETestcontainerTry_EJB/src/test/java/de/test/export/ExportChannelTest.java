@@ -0,0 +1,65 @@
+package de.test.export;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+public class ExportChannelTest {
+
+    // Longer than the buffer, contains characters encoded with two and three bytes
+    private static final String TEXT = repeat("KING,M\u00fcller,\u20ac\n", ExportChannel.BUFFER_SIZE / 5);
+
+    @Test
+    public void WritesUtf8LargerThanTheBuffer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ExportChannel channel = new ExportChannel(Channels.newChannel(bytes))) {
+            channel.write(TEXT.substring(0, 10));
+            channel.write(TEXT.substring(10));
+        }
+
+        Assertions.assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(TEXT);
+    }
+
+    @Test
+    public void WritesGzipFile() throws IOException {
+        Path file = Files.createTempFile("export", ".csv.gz");
+        try {
+            try (ExportChannel channel = ExportChannel.open(file, true)) {
+                channel.write(TEXT);
+            }
+
+            Assertions.assertThat(Files.size(file)).isLessThan(TEXT.length());
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                Assertions.assertThat(new String(readAll(in), StandardCharsets.UTF_8)).isEqualTo(TEXT);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        for (int read = in.read(chunk); read >= 0; read = in.read(chunk)) {
+            bytes.write(chunk, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,56 @@
+package de.test.export;
+
+import de.test.dto.EmpExportRow;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.GregorianCalendar;
+
+public class ExportFormatTest {
+
+    private static final EmpExportRow KING = new EmpExportRow(7839, "KING", "PRESIDENT", null,
+            new GregorianCalendar(1981, 10, 17).getTime(), new BigDecimal("5000"), null, 3);
+
+    private static final EmpExportRow QUOTED = new EmpExportRow(1, "A \"B\", C", "LINE\nBREAK", 7839L, null,
+            new BigDecimal("1E+3"), new BigDecimal("12.50"), 0);
+
+    @Test
+    public void CsvHasHeaderAndEmptyFieldsForNull() {
+        StringBuilder line = new StringBuilder();
+        ExportFormat.CSV.appendHeader(line);
+        ExportFormat.CSV.appendRow(line, KING);
+
+        Assertions.assertThat(line.toString()).isEqualTo("empno,ename,job,mgr,hiredate,sal,comm,version\n"
+                + "7839,KING,PRESIDENT,,1981-11-17,5000,,3\n");
+    }
+
+    @Test
+    public void CsvQuotesSeparatorsAndQuotesAndReplacesLineBreaks() {
+        StringBuilder line = new StringBuilder();
+        ExportFormat.CSV.appendRow(line, QUOTED);
+
+        Assertions.assertThat(line.toString()).isEqualTo("1,\"A \"\"B\"\", C\",LINE BREAK,7839,,1000,12.50,0\n");
+    }
+
+    @Test
+    public void NdjsonWritesOneObjectPerLine() {
+        StringBuilder line = new StringBuilder();
+        ExportFormat.NDJSON.appendHeader(line);
+        ExportFormat.NDJSON.appendRow(line, KING);
+
+        Assertions.assertThat(line.toString()).isEqualTo("{\"empno\":7839,\"ename\":\"KING\",\"job\":\"PRESIDENT\","
+                + "\"mgr\":null,\"hiredate\":\"1981-11-17\",\"sal\":5000,\"comm\":null,\"version\":3}\n");
+    }
+
+    @Test
+    public void NdjsonEscapesQuotesAndControlCharacters() {
+        StringBuilder line = new StringBuilder();
+        ExportFormat.NDJSON.appendRow(line, QUOTED);
+
+        Assertions.assertThat(line.toString()).isEqualTo("{\"empno\":1,\"ename\":\"A \\\"B\\\", C\","
+                + "\"job\":\"LINE\\u000aBREAK\",\"mgr\":7839,\"hiredate\":null,\"sal\":1000,\"comm\":12.50,"
+                + "\"version\":0}\n");
+    }
+
+}
@@ -0,0 +1,117 @@
+package de.test.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+public class AsyncSemaphoreTest {
+
+    @Test
+    public void StartsWaitingTaskWhenPermitIsReleased() {
+        AsyncSemaphore sut = new AsyncSemaphore(1, 10);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        List<String> started = new ArrayList<>();
+
+        CompletableFuture<String> firstResult = sut.submit(() -> {
+            started.add("first");
+            return AsyncSemaphore.Task.of(first);
+        });
+        CompletableFuture<String> secondResult = sut.submit(() -> {
+            started.add("second");
+            return AsyncSemaphore.Task.of(CompletableFuture.completedFuture("2"));
+        });
+
+        Assertions.assertThat(started).containsExactly("first");
+        Assertions.assertThat(sut.getWaiting()).isEqualTo(1);
+
+        first.complete("1");
+
+        Assertions.assertThat(started).containsExactly("first", "second");
+        Assertions.assertThat(firstResult).isCompletedWithValue("1");
+        Assertions.assertThat(secondResult).isCompletedWithValue("2");
+        Assertions.assertThat(sut.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    public void RejectsTasksIfTooManyAreWaiting() {
+        AsyncSemaphore sut = new AsyncSemaphore(1, 1);
+
+        sut.submit(() -> AsyncSemaphore.Task.of(new CompletableFuture<>()));
+        sut.submit(() -> AsyncSemaphore.Task.of(new CompletableFuture<>()));
+        CompletableFuture<Object> rejected = sut.submit(() -> AsyncSemaphore.Task.of(new CompletableFuture<>()));
+
+        Assertions.assertThat(rejected).hasFailedWithThrowableThat().isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void SkipsWaitingTaskCompletedByTimeout() {
+        AsyncSemaphore sut = new AsyncSemaphore(1, 10);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        List<String> started = new ArrayList<>();
+
+        sut.submit(() -> AsyncSemaphore.Task.of(first));
+        CompletableFuture<String> waiting = sut.submit(() -> {
+            started.add("timed out");
+            return AsyncSemaphore.Task.of(new CompletableFuture<>());
+        });
+        waiting.completeExceptionally(new TimeoutException());
+        first.complete("1");
+
+        Assertions.assertThat(started).isEmpty();
+        Assertions.assertThat(sut.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    public void CancelsRunningTaskCompletedByTimeout() {
+        AsyncSemaphore sut = new AsyncSemaphore(1, 10);
+        CompletableFuture<String> running = new CompletableFuture<>();
+
+        CompletableFuture<String> result = sut.submit(() -> AsyncSemaphore.Task.of(running));
+        result.completeExceptionally(new TimeoutException());
+
+        Assertions.assertThat(running).isCancelled();
+        Assertions.assertThat(sut.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    public void CancelledTaskKeepsPermitUntilItFinished() {
+        AsyncSemaphore sut = new AsyncSemaphore(1, 10);
+        CompletableFuture<String> running = new CompletableFuture<>();
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        List<String> started = new ArrayList<>();
+
+        CompletableFuture<String> result = sut.submit(() -> new AsyncSemaphore.Task<>(running, finished));
+        sut.submit(() -> {
+            started.add("second");
+            return AsyncSemaphore.Task.of(new CompletableFuture<>());
+        });
+        result.completeExceptionally(new TimeoutException());
+
+        // Still running, e.g. blocked in a JDBC call ignoring the interrupt
+        Assertions.assertThat(running).isCancelled();
+        Assertions.assertThat(started).isEmpty();
+        Assertions.assertThat(sut.getAvailablePermits()).isZero();
+
+        finished.complete(null);
+
+        Assertions.assertThat(started).containsExactly("second");
+    }
+
+    @Test
+    public void ReleasesPermitIfTaskFailsToStart() {
+        AsyncSemaphore sut = new AsyncSemaphore(1, 10);
+
+        CompletableFuture<String> result = sut.submit(() -> {
+            throw new OutOfMemoryError("unable to create native thread");
+        });
+
+        Assertions.assertThat(result).hasFailedWithThrowableThat().isInstanceOf(OutOfMemoryError.class);
+        Assertions.assertThat(sut.getAvailablePermits()).isEqualTo(1);
+    }
+
+}